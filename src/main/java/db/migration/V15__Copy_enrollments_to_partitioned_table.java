@@ -0,0 +1,64 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+// step 2 of moving enrollments to a hash-partitioned table: copy the rows that existed before the V14 triggers
+// in primary key order, one short transaction per batch, while the triggers keep mirroring new writes
+public class V15__Copy_enrollments_to_partitioned_table extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 10_000;
+
+    // FOR KEY SHARE holds off a concurrent unenrollment until the batch commits, otherwise its mirrored delete
+    // could run before the copy and the row would come back; rows the triggers already copied are skipped
+    private static final String COPY_BATCH =
+            "WITH batch AS (SELECT student_id, course_id FROM student_courses%s " +
+            "ORDER BY student_id, course_id LIMIT ? FOR KEY SHARE), " +
+            "copied AS (INSERT INTO student_courses_partitioned (student_id, course_id) " +
+            "SELECT student_id, course_id FROM batch ON CONFLICT DO NOTHING RETURNING 1) " +
+            "SELECT student_id, course_id FROM batch ORDER BY student_id DESC, course_id DESC LIMIT 1";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+
+        try (PreparedStatement first = connection.prepareStatement(COPY_BATCH.formatted(""));
+             PreparedStatement next = connection.prepareStatement(COPY_BATCH.formatted(" WHERE (student_id, course_id) > (?, ?)"))) {
+            UUID[] lastKey = runBatch(connection, first, null);
+            while (lastKey != null) {
+                lastKey = runBatch(connection, next, lastKey);
+            }
+        }
+    }
+
+    private static UUID[] runBatch(Connection connection, PreparedStatement statement, UUID[] after) throws SQLException {
+        int index = 1;
+        if (after != null) {
+            statement.setObject(index++, after[0]);
+            statement.setObject(index++, after[1]);
+        }
+        statement.setInt(index, BATCH_SIZE);
+
+        UUID[] lastKey = null;
+        try (ResultSet rs = statement.executeQuery()) {
+            if (rs.next()) {
+                lastKey = new UUID[]{rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)};
+            }
+        }
+
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+        return lastKey;
+    }
+}
@@ -0,0 +1,88 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// step 2 of the VARCHAR -> uuid key migration: fill the shadow columns added in V7 in primary key order,
+// one short transaction per batch, so no statement holds row locks on more than BATCH_SIZE rows
+public class V8__Backfill_uuid_key_columns extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final List<Backfill> BACKFILLS = List.of(
+            new Backfill("groups", List.of("group_id"), "group_uuid = text_to_uuid(t.group_id)"),
+            new Backfill("courses", List.of("course_id"), "course_uuid = text_to_uuid(t.course_id)"),
+            new Backfill("students", List.of("student_id"),
+                    "student_uuid = text_to_uuid(t.student_id), group_uuid = text_to_uuid(t.group_id)"),
+            new Backfill("student_courses", List.of("student_id", "course_id"),
+                    "student_uuid = text_to_uuid(t.student_id), course_uuid = text_to_uuid(t.course_id)")
+    );
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+
+        for (Backfill backfill : BACKFILLS) {
+            try (PreparedStatement first = connection.prepareStatement(backfill.sql(false));
+                 PreparedStatement next = connection.prepareStatement(backfill.sql(true))) {
+                String[] lastKey = runBatch(connection, first, backfill, null);
+                while (lastKey != null) {
+                    lastKey = runBatch(connection, next, backfill, lastKey);
+                }
+            }
+        }
+    }
+
+    private static String[] runBatch(Connection connection, PreparedStatement statement, Backfill backfill,
+                                     String[] after) throws SQLException {
+        int index = 1;
+        if (after != null) {
+            for (String key : after) {
+                statement.setString(index++, key);
+            }
+        }
+        statement.setInt(index, BATCH_SIZE);
+
+        String[] lastKey = null;
+        try (ResultSet rs = statement.executeQuery()) {
+            if (rs.next()) {
+                lastKey = new String[backfill.keyColumns().size()];
+                for (int i = 0; i < lastKey.length; i++) {
+                    lastKey[i] = rs.getString(i + 1);
+                }
+            }
+        }
+
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+        return lastKey;
+    }
+
+    private record Backfill(String table, List<String> keyColumns, String assignments) {
+
+        String sql(boolean afterKey) {
+            String keys = String.join(", ", keyColumns);
+            String descending = String.join(" DESC, ", keyColumns) + " DESC";
+            String joined = String.join(" AND ", keyColumns.stream().map(key -> "t." + key + " = batch." + key).toList());
+            String lowerBound = afterKey
+                    ? " WHERE (" + keys + ") > (" + String.join(", ", keyColumns.stream().map(key -> "?").toList()) + ")"
+                    : "";
+
+            // the data-modifying CTE always runs to completion, the outer query only reports where the batch ended
+            return "WITH batch AS (SELECT " + keys + " FROM " + table + lowerBound + " ORDER BY " + keys + " LIMIT ?), " +
+                   "updated AS (UPDATE " + table + " t SET " + assignments + " FROM batch WHERE " + joined + " RETURNING 1) " +
+                   "SELECT " + keys + " FROM batch ORDER BY " + descending + " LIMIT 1";
+        }
+    }
+}
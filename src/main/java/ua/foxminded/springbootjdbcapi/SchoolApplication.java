@@ -2,18 +2,23 @@ package ua.foxminded.springbootjdbcapi;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
 import ua.foxminded.springbootjdbcapi.model.Group;
+import ua.foxminded.springbootjdbcapi.model.GroupStudentCount;
 import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.model.StudentDetails;
 import ua.foxminded.springbootjdbcapi.service.GroupService;
 import ua.foxminded.springbootjdbcapi.service.SchoolService;
 import ua.foxminded.springbootjdbcapi.service.StudentService;
 
 import java.util.List;
 
+import ua.foxminded.springbootjdbcapi.service.BulkGenerateService;
+import ua.foxminded.springbootjdbcapi.service.EnrollmentIndex;
 import ua.foxminded.springbootjdbcapi.service.GenerateService;
 
 import java.util.InputMismatchException;
@@ -24,15 +29,23 @@ import java.util.Scanner;
 public class SchoolApplication implements ApplicationRunner {
     private static final Logger logger = LoggerFactory.getLogger(SchoolApplication.class);
     private final GenerateService generateService;
+    private final BulkGenerateService bulkGenerateService;
+    private final boolean bulkSeeding;
     private final StudentService studentService;
     private final GroupService groupService;
     private final SchoolService schoolService;
+    private final EnrollmentIndex enrollmentIndex;
 
-    public SchoolApplication(GroupService groupService, StudentService studentService, SchoolService schoolService, GenerateService generateService) {
+    public SchoolApplication(GroupService groupService, StudentService studentService, SchoolService schoolService,
+                             GenerateService generateService, BulkGenerateService bulkGenerateService,
+                             EnrollmentIndex enrollmentIndex, @Value("${school.bulk.enabled:false}") boolean bulkSeeding) {
         this.generateService = generateService;
+        this.bulkGenerateService = bulkGenerateService;
+        this.bulkSeeding = bulkSeeding;
         this.studentService = studentService;
         this.groupService = groupService;
         this.schoolService = schoolService;
+        this.enrollmentIndex = enrollmentIndex;
     }
 
     @Override
@@ -40,6 +53,8 @@ public class SchoolApplication implements ApplicationRunner {
         logger.info("Starting application");
 
         setupInitialData();
+        // the menu holds this runner until Exit, so ApplicationReadyEvent would only fire on the way out
+        enrollmentIndex.warm();
 
         try (Scanner scanner = new Scanner(System.in)) {
             boolean running = true;
@@ -52,6 +67,12 @@ public class SchoolApplication implements ApplicationRunner {
 
     private void setupInitialData() {
         generateService.deleteAll();
+
+        if (bulkSeeding) {
+            bulkGenerateService.generate();
+            return;
+        }
+
         generateService.generateGroups();
         generateService.generateCourses();
         generateService.generateStudents();
@@ -225,7 +246,7 @@ public class SchoolApplication implements ApplicationRunner {
             System.out.println("Enter the course name: ");
             String courseName = scanner.next();
 
-            List<Student> students = studentService.findAllStudentsByCourseName(courseName);
+            List<StudentDetails> students = studentService.findAllStudentsByCourseName(courseName);
 
             if (students.isEmpty()) {
                 System.out.println("No students were found enrolled in the course named '" + courseName + "'.");
@@ -250,13 +271,14 @@ public class SchoolApplication implements ApplicationRunner {
                 return;
             }
 
-            List<Group> groups = groupService.findAllGroupsWithLessOrEqualsStudentCount(maxStudents);
+            List<GroupStudentCount> groups = groupService.findAllGroupsWithLessOrEqualsStudentCount(maxStudents);
 
             if (groups.isEmpty()) {
                 System.out.println("No groups found with " + maxStudents + " or less students.");
             } else {
                 System.out.println("Groups with " + maxStudents + " or less students:");
-                groups.forEach(group -> System.out.println(group.toString()));
+                groups.forEach(group -> System.out.println("Group{id='" + group.getId() + "', groupName='" + group.getGroupName()
+                                                           + "', studentCount=" + group.getStudentCount() + "}"));
             }
         } catch (InputMismatchException e) {
             System.out.println("Invalid input. Please enter a numeric value.");
@@ -273,7 +295,7 @@ public class SchoolApplication implements ApplicationRunner {
             System.out.println("Enter the ID of the student: ");
             String studentId = scanner.next();
 
-            Student student = studentService.getById(studentId);
+            StudentDetails student = studentService.getById(studentId);
 
             System.out.println("Student found: " + student.toString());
         } catch (InputMismatchException e) {
@@ -0,0 +1,105 @@
+package ua.foxminded.springbootjdbcapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String STUDENTS_CACHE = "students";
+    public static final String COURSE_ROSTERS_CACHE = "courseRosters";
+    // entries are keyed by UUID, so a lookup by text and an eviction by entity land on the same key
+    public static final String ID_KEY = "T(ua.foxminded.springbootjdbcapi.model.EntityIds).parse(#id)";
+
+    public static final String COURSE_REGION = "school.course";
+    public static final String GROUP_REGION = "school.group";
+    public static final String COURSE_STUDENTS_REGION = "school.course.students";
+
+    private static final List<String> ENTITY_REGIONS = List.of(COURSE_REGION, GROUP_REGION, COURSE_STUDENTS_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${school.cache.entity.maximum-size:10000}") long maximumSize,
+                                           @Value("${school.cache.entity.time-to-live:PT10M}") Duration timeToLive) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("school-entity-cache"), getClass().getClassLoader());
+
+        for (String region : ENTITY_REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+            // Hibernate already stores disassembled state, copying it again on every read is wasted work
+            configuration.setStoreByValue(false);
+            configuration.setStatisticsEnabled(true);
+            configuration.setManagementEnabled(true);
+
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, configuration);
+            }
+        }
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    @Bean
+    public org.springframework.cache.CacheManager cacheManager(@Value("${school.cache.students.maximum-size:10000}") long studentsMaximumSize,
+                                                             @Value("${school.cache.students.time-to-live:PT30M}") Duration studentsTimeToLive,
+                                                             @Value("${school.cache.course-rosters.maximum-size:1000}") long rostersMaximumSize,
+                                                             @Value("${school.cache.course-rosters.time-to-live:PT1H}") Duration rostersTimeToLive) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(STUDENTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(studentsMaximumSize)
+                .expireAfterWrite(studentsTimeToLive)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(COURSE_ROSTERS_CACHE, Caffeine.newBuilder()
+                .maximumSize(rostersMaximumSize)
+                .expireAfterWrite(rostersTimeToLive)
+                .recordStats()
+                .build());
+
+        // evictions wait for the commit, otherwise a reader could cache the old row before the update is visible
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    // Micrometer only reports load latency for LoadingCache, but sync @Cacheable loads are still timed by Caffeine
+    @Bean
+    public MeterBinder cacheLoadMetrics(org.springframework.cache.CacheManager cacheManager) {
+        return registry -> {
+            for (String name : List.of(STUDENTS_CACHE, COURSE_ROSTERS_CACHE)) {
+                @SuppressWarnings("unchecked")
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                        (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+
+                FunctionTimer.builder("cache.load", nativeCache,
+                                cache -> cache.stats().loadCount(), cache -> cache.stats().totalLoadTime(), TimeUnit.NANOSECONDS)
+                        .tags("cache", name)
+                        .description("Time spent loading entries on cache misses")
+                        .register(registry);
+            }
+        };
+    }
+}
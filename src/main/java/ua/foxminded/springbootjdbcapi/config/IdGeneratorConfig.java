@@ -0,0 +1,23 @@
+package ua.foxminded.springbootjdbcapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ua.foxminded.springbootjdbcapi.model.EntityIds;
+import ua.foxminded.springbootjdbcapi.model.IdGenerator;
+import ua.foxminded.springbootjdbcapi.model.UuidV7Generator;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public IdGenerator idGenerator(@Value("${school.id-generator:uuid7}") String type) {
+        IdGenerator generator = switch (type) {
+            case "uuid7" -> new UuidV7Generator();
+            case "random" -> IdGenerator.RANDOM;
+            default -> throw new IllegalArgumentException("Unknown ID generator: " + type + "!");
+        };
+        EntityIds.setGenerator(generator);
+        return generator;
+    }
+}
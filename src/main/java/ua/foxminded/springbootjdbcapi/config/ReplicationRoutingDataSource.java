@@ -0,0 +1,66 @@
+package ua.foxminded.springbootjdbcapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// read-only transactions go to the replica, everything else to the primary; the transaction manager asks for
+// its connection before it marks the transaction read-only, so this has to sit behind a LazyConnectionDataSourceProxy
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final long readYourWritesNanos;
+    private final LongSupplier clock;
+    // per instance rather than per caller, the console has no sessions to scope it to
+    private volatile long lastWriteNanos;
+
+    public ReplicationRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWrites) {
+        this(primary, replica, readYourWrites, System::nanoTime);
+    }
+
+    ReplicationRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWrites, LongSupplier clock) {
+        this.readYourWritesNanos = readYourWrites.toNanos();
+        this.clock = clock;
+        this.lastWriteNanos = clock.getAsLong() - readYourWritesNanos;
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWrite();
+            return Route.PRIMARY;
+        }
+
+        // the replica replays the primary's WAL asynchronously, so right after a commit it may not have the write yet
+        return clock.getAsLong() - lastWriteNanos < readYourWritesNanos ? Route.PRIMARY : Route.REPLICA;
+    }
+
+    // the window starts when the write becomes visible on the primary, not when its transaction began; auto-commit
+    // statements outside a transaction are the console's plain reads, so they never open it
+    private void recordWrite() {
+        if (readYourWritesNanos <= 0
+            || !TransactionSynchronizationManager.isActualTransactionActive()
+            || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWriteNanos = clock.getAsLong();
+            }
+        });
+    }
+}
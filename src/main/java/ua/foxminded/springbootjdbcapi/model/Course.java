@@ -1,5 +1,6 @@
 package ua.foxminded.springbootjdbcapi.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
@@ -10,23 +11,30 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.CascadeType;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
 
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.COURSE_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
 @Table(name = "courses")
-public class Course {
+public class Course extends AssignedIdEntity {
     @Id
     @Column(name = "course_id")
-    private String id;
+    @Setter(AccessLevel.NONE)
+    private UUID id;
 
     @Column(name = "course_name")
     private String name;
@@ -34,35 +42,39 @@ public class Course {
     @Column(name = "course_description")
     private String description;
 
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE}, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.COURSE_STUDENTS_REGION)
+    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
     @JoinTable(
             name = "student_courses",
             joinColumns = @JoinColumn(name = "course_id"),
             inverseJoinColumns = @JoinColumn(name = "student_id")
     )
-    private List<Student> students;
+    private Set<Student> students;
 
-    public Course(String id, String name, String description) {
+    public Course(UUID id, String name, String description) {
         this.id = id;
         this.name = name;
         this.description = description;
     }
 
+    public Course(String id, String name, String description) {
+        this(EntityIds.parse(id), name, description);
+    }
+
     public Course(String name, String description){
-        this(UUID.randomUUID().toString(), name, description);
+        this(EntityIds.next(), name, description);
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Course course = (Course) o;
-        return Objects.equals(id, course.id) && Objects.equals(name, course.name) && Objects.equals(description, course.description);
+        if (!(o instanceof Course course)) return false;
+        return id != null && id.equals(course.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description);
+        return Objects.hashCode(id);
     }
 
     @Override
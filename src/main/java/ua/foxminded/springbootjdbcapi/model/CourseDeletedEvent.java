@@ -0,0 +1,6 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.UUID;
+
+public record CourseDeletedEvent(UUID courseId) {
+}
@@ -0,0 +1,4 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+public record CourseEnrollmentCount(String courseId, String courseName, long studentCount) {
+}
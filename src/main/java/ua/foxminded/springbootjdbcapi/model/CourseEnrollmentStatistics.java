@@ -0,0 +1,15 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public record CourseEnrollmentStatistics(List<CourseEnrollmentCount> courses,
+                                         double averageCoursesPerStudent,
+                                         Map<String, Map<String, Long>> groupCourseMatrix,
+                                         Instant refreshedAt) {
+
+    public long studentCount(String groupId, String courseId) {
+        return groupCourseMatrix.getOrDefault(groupId, Map.of()).getOrDefault(courseId, 0L);
+    }
+}
@@ -0,0 +1,10 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.UUID;
+
+public record Enrollment(UUID studentId, UUID courseId) {
+
+    public Enrollment(String studentId, String courseId) {
+        this(EntityIds.parse(studentId), EntityIds.parse(courseId));
+    }
+}
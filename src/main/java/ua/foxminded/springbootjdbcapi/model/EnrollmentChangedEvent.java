@@ -0,0 +1,29 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public record EnrollmentChangedEvent(Collection<Enrollment> enrolled, Collection<Enrollment> unenrolled) {
+    public EnrollmentChangedEvent {
+        enrolled = List.copyOf(enrolled);
+        unenrolled = List.copyOf(unenrolled);
+    }
+
+    public static EnrollmentChangedEvent enrolled(Collection<Enrollment> enrollments) {
+        return new EnrollmentChangedEvent(enrollments, List.of());
+    }
+
+    public static EnrollmentChangedEvent unenrolled(Collection<Enrollment> enrollments) {
+        return new EnrollmentChangedEvent(List.of(), enrollments);
+    }
+
+    public Set<UUID> courseIds() {
+        return Stream.concat(enrolled.stream(), unenrolled.stream())
+                .map(Enrollment::courseId)
+                .collect(Collectors.toSet());
+    }
+}
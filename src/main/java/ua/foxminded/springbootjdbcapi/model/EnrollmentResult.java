@@ -0,0 +1,14 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.Map;
+
+public record EnrollmentResult(Map<Enrollment, EnrollmentStatus> statuses) {
+
+    public long count(EnrollmentStatus status) {
+        return statuses.values().stream().filter(status::equals).count();
+    }
+
+    public EnrollmentStatus statusOf(Enrollment enrollment) {
+        return statuses.get(enrollment);
+    }
+}
@@ -0,0 +1,8 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+public enum EnrollmentStatus {
+    ENROLLED,
+    ALREADY_ENROLLED,
+    STUDENT_NOT_FOUND,
+    COURSE_NOT_FOUND
+}
@@ -0,0 +1,4 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+public record EnrollmentsResetEvent() {
+}
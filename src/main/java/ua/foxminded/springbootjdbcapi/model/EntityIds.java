@@ -0,0 +1,48 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+public final class EntityIds {
+    // UUID.fromString also accepts shortened groups like "1-2-3-4-5", which the database would reject
+    private static final Pattern CANONICAL_UUID =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private static volatile IdGenerator generator = new UuidV7Generator();
+
+    private EntityIds() {
+    }
+
+    public static UUID next() {
+        return generator.next();
+    }
+
+    // entities are created with new rather than by the container, so the configured generator is published here
+    public static void setGenerator(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("ID generator cannot be null!");
+        }
+        EntityIds.generator = generator;
+    }
+
+    // keys that were never UUIDs were migrated to md5(key)::uuid (V7), so the same mapping keeps them addressable
+    public static UUID parse(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null!");
+        }
+        if (CANONICAL_UUID.matcher(id).matches()) {
+            return UUID.fromString(id);
+        }
+
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("MD5").digest(id.getBytes(StandardCharsets.UTF_8)));
+            return new UUID(digest.getLong(), digest.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
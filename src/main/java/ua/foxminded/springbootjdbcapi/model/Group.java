@@ -1,28 +1,36 @@
 package ua.foxminded.springbootjdbcapi.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.OneToMany;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
 
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.GROUP_REGION)
 @Table(name = "groups")
 @Getter
 @Setter
 @NoArgsConstructor
-public class Group {
+public class Group extends AssignedIdEntity {
     @Id
     @Column(name = "group_id")
-    private String id;
+    @Setter(AccessLevel.NONE)
+    private UUID id;
 
     @Column(name = "group_name")
     private String groupName;
@@ -30,26 +38,30 @@ public class Group {
     @OneToMany(mappedBy = "group")
     private List<Student> students;
 
-    public Group(String id, String groupName) {
+    public Group(UUID id, String groupName) {
         this.id = id;
         this.groupName = groupName;
     }
 
+    public Group(String id, String groupName) {
+        this(EntityIds.parse(id), groupName);
+    }
+
     public Group(String groupName) {
-        this(UUID.randomUUID().toString(), groupName);
+        this(EntityIds.next(), groupName);
     }
 
+    // a renamed group is still the same row, and a lazy proxy of it is an instance of a generated subclass
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Group group = (Group) o;
-        return Objects.equals(id, group.id) && Objects.equals(groupName, group.groupName);
+        if (!(o instanceof Group group)) return false;
+        return id != null && id.equals(group.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, groupName);
+        return Objects.hashCode(id);
     }
 
     @Override
@@ -0,0 +1,11 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.UUID;
+
+public interface GroupStudentCount {
+    UUID getId();
+
+    String getGroupName();
+
+    long getStudentCount();
+}
@@ -0,0 +1,10 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.UUID;
+
+@FunctionalInterface
+public interface IdGenerator {
+    IdGenerator RANDOM = UUID::randomUUID;
+
+    UUID next();
+}
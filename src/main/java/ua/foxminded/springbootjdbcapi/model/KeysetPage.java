@@ -0,0 +1,20 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record KeysetPage<T>(List<T> content, String nextCursor) {
+
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, String> idExtractor) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+
+        List<T> content = rows.subList(0, pageSize);
+        return new KeysetPage<>(content, idExtractor.apply(content.get(pageSize - 1)));
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -8,13 +8,17 @@ import jakarta.persistence.Column;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedAttributeNode;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
@@ -22,12 +26,14 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @Table(name = "students")
-public class Student {
+@NamedEntityGraph(name = "Student.detail", attributeNodes = @NamedAttributeNode("group"))
+public class Student extends AssignedIdEntity {
     @Id
     @Column(name = "student_id")
-    private String id;
+    @Setter(AccessLevel.NONE)
+    private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "group_id")
     private Group group;
 
@@ -38,36 +44,39 @@ public class Student {
     private String lastName;
 
     @ManyToMany(mappedBy = "students")
-    private List<Course> courses;
-    public Student(String id, Group group, String firstName, String lastName) {
+    private Set<Course> courses;
+    public Student(UUID id, Group group, String firstName, String lastName) {
         this.id = id;
         this.group = group;
         this.firstName = firstName;
         this.lastName = lastName;
     }
 
+    public Student(String id, Group group, String firstName, String lastName) {
+        this(EntityIds.parse(id), group, firstName, lastName);
+    }
+
     public Student(Group group, String firstName, String lastName) {
-        this(UUID.randomUUID().toString(), group, firstName, lastName);
+        this(EntityIds.next(), group, firstName, lastName);
     }
 
+    // identity is the assigned id alone, so hashing never walks into the group and works through lazy proxies
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Student student = (Student) o;
-        return Objects.equals(id, student.id) && Objects.equals(group, student.group) && Objects.equals(firstName, student.firstName) && Objects.equals(lastName, student.lastName);
+        if (!(o instanceof Student student)) return false;
+        return id != null && id.equals(student.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, group, firstName, lastName);
+        return Objects.hashCode(id);
     }
 
     @Override
     public String toString() {
         return "Student{" +
                "id='" + id + '\'' +
-               ", group=" + group +
                ", firstName='" + firstName + '\'' +
                ", lastName='" + lastName + '\'' +
                '}';
@@ -0,0 +1,16 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.UUID;
+
+// immutable snapshot of a student for the students and roster caches, so cached hits never share a managed entity or its lazy courses
+public record StudentDetails(UUID id, UUID groupId, String groupName, String firstName, String lastName) {
+
+    public static StudentDetails of(Student student) {
+        Group group = student.getGroup();
+        return new StudentDetails(student.getId(),
+                group == null ? null : group.getId(),
+                group == null ? null : group.getGroupName(),
+                student.getFirstName(),
+                student.getLastName());
+    }
+}
@@ -0,0 +1,50 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// RFC 9562 version 7: 48-bit unix millis, then a 12-bit counter in rand_a, then 62 random bits,
+// so ids created later sort later and inserts append to the right edge of the key indexes
+public class UuidV7Generator implements IdGenerator {
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+
+    private final LongSupplier clock;
+    // millis << COUNTER_BITS | counter of the last id handed out
+    private final AtomicLong lastTick = new AtomicLong();
+
+    public UuidV7Generator() {
+        this(System::currentTimeMillis);
+    }
+
+    UuidV7Generator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID next() {
+        // the ordering comes from the tick, the tail only has to keep other JVMs apart, so no SecureRandom contention
+        return fromTick(nextTick(), ThreadLocalRandom.current().nextLong());
+    }
+
+    // for seeded loads: the sequence counts on from baseMillis the way next() would within one fast burst,
+    // so rows numbered in insert order get ids in key order, and the same seed gives the same ids
+    public static UUID sequential(long baseMillis, long sequence, long randomBits) {
+        return fromTick((baseMillis << COUNTER_BITS) + sequence, randomBits);
+    }
+
+    private static UUID fromTick(long tick, long randomBits) {
+        long mostSigBits = (tick >>> COUNTER_BITS) << 16 | VERSION | (tick & ((1L << COUNTER_BITS) - 1));
+        long leastSigBits = randomBits >>> 2 | VARIANT;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    // a full counter or a clock stepping back borrows from the next millisecond instead of breaking the order
+    private long nextTick() {
+        long now = clock.getAsLong() << COUNTER_BITS;
+        return lastTick.updateAndGet(last -> Math.max(now, last + 1));
+    }
+}
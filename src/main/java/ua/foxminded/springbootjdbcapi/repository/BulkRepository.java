@@ -0,0 +1,148 @@
+package ua.foxminded.springbootjdbcapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ua.foxminded.springbootjdbcapi.model.Course;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.Group;
+import ua.foxminded.springbootjdbcapi.model.Student;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+@Repository
+public class BulkRepository {
+    private static final String INSERT_GROUP = "INSERT INTO groups (group_id, group_name) VALUES (?, ?)";
+    private static final String INSERT_COURSE = "INSERT INTO courses (course_id, course_name, course_description) VALUES (?, ?, ?)";
+    private static final String INSERT_STUDENT = "INSERT INTO students (student_id, group_id, first_name, last_name) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_ENROLLMENT = "INSERT INTO student_courses (student_id, course_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_NEW_ENROLLMENTS = "INSERT INTO student_courses (student_id, course_id) " +
+                                                         "SELECT * FROM unnest(?::uuid[], ?::uuid[]) " +
+                                                         "ON CONFLICT DO NOTHING RETURNING student_id, course_id";
+    private static final String FIND_STUDENT_IDS = "SELECT student_id FROM students WHERE student_id = ANY (?)";
+    private static final String FIND_COURSE_IDS = "SELECT course_id FROM courses WHERE course_id = ANY (?)";
+    private static final String FIND_ENROLLMENTS = "SELECT student_id, course_id FROM student_courses WHERE student_id = ANY (?) AND course_id = ANY (?)";
+    private static final String FIND_ALL_ENROLLMENTS = "SELECT student_id, course_id FROM student_courses";
+    private static final String COUNT_ENROLLMENTS_BY_COURSE = "SELECT course_id, COUNT(*) FROM student_courses GROUP BY course_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public BulkRepository(JdbcTemplate jdbcTemplate, @Value("${school.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public int insertGroups(Collection<Group> groups) {
+        return sum(jdbcTemplate.batchUpdate(INSERT_GROUP, groups, batchSize, (ps, group) -> {
+            ps.setObject(1, group.getId());
+            ps.setString(2, group.getGroupName());
+        }), groups.size());
+    }
+
+    public int insertCourses(Collection<Course> courses) {
+        return sum(jdbcTemplate.batchUpdate(INSERT_COURSE, courses, batchSize, (ps, course) -> {
+            ps.setObject(1, course.getId());
+            ps.setString(2, course.getName());
+            ps.setString(3, course.getDescription());
+        }), courses.size());
+    }
+
+    public int insertStudents(Collection<Student> students) {
+        return sum(jdbcTemplate.batchUpdate(INSERT_STUDENT, students, batchSize, (ps, student) -> {
+            ps.setObject(1, student.getId());
+            ps.setObject(2, student.getGroup() == null ? null : student.getGroup().getId(), Types.OTHER);
+            ps.setString(3, student.getFirstName());
+            ps.setString(4, student.getLastName());
+        }), students.size());
+    }
+
+    public int insertEnrollments(Collection<Enrollment> enrollments) {
+        return sum(jdbcTemplate.batchUpdate(INSERT_ENROLLMENT, enrollments, batchSize, (ps, enrollment) -> {
+            ps.setObject(1, enrollment.studentId());
+            ps.setObject(2, enrollment.courseId());
+        }), enrollments.size());
+    }
+
+    // one statement per batch instead of a JDBC batch: rewritten batches only report rows sent,
+    // RETURNING names exactly the pairs that were not enrolled yet
+    public List<Enrollment> insertNewEnrollments(Collection<Enrollment> enrollments) {
+        List<Enrollment> pending = List.copyOf(enrollments);
+        List<Enrollment> inserted = new ArrayList<>();
+
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Enrollment> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            inserted.addAll(jdbcTemplate.query(INSERT_NEW_ENROLLMENTS, ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("uuid", batch.stream().map(Enrollment::studentId).toArray()));
+                ps.setArray(2, ps.getConnection().createArrayOf("uuid", batch.stream().map(Enrollment::courseId).toArray()));
+            }, (rs, rowNum) -> new Enrollment(rs.getObject("student_id", UUID.class), rs.getObject("course_id", UUID.class))));
+        }
+
+        return inserted;
+    }
+
+    public Set<UUID> findExistingStudentIds(Collection<UUID> ids) {
+        return findExistingIds(FIND_STUDENT_IDS, ids);
+    }
+
+    public Set<UUID> findExistingCourseIds(Collection<UUID> ids) {
+        return findExistingIds(FIND_COURSE_IDS, ids);
+    }
+
+    public Set<Enrollment> findEnrollments(Collection<UUID> studentIds, Collection<UUID> courseIds) {
+        if (studentIds.isEmpty() || courseIds.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        return new HashSet<>(jdbcTemplate.query(FIND_ENROLLMENTS, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", studentIds.toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", courseIds.toArray()));
+        }, (rs, rowNum) -> new Enrollment(rs.getObject("student_id", UUID.class), rs.getObject("course_id", UUID.class))));
+    }
+
+    public void forEachEnrollment(BiConsumer<UUID, UUID> consumer) {
+        jdbcTemplate.query(FIND_ALL_ENROLLMENTS, (RowCallbackHandler) rs -> consumer.accept(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)));
+    }
+
+    public Map<UUID, Long> countEnrollmentsByCourse() {
+        Map<UUID, Long> counts = new HashMap<>();
+        jdbcTemplate.query(COUNT_ENROLLMENTS_BY_COURSE, (RowCallbackHandler) rs -> counts.put(rs.getObject(1, UUID.class), rs.getLong(2)));
+        return counts;
+    }
+
+    private Set<UUID> findExistingIds(String sql, Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        return new HashSet<>(jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())),
+                (rs, rowNum) -> rs.getObject(1, UUID.class)));
+    }
+
+    private static int sum(int[][] counts, int rowsSent) {
+        int total = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count < 0) {
+                    // rewritten multi-row inserts report SUCCESS_NO_INFO instead of a row count
+                    return rowsSent;
+                }
+                total += count;
+            }
+        }
+        return total;
+    }
+}
@@ -1,7 +1,90 @@
 package ua.foxminded.springbootjdbcapi.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ua.foxminded.springbootjdbcapi.model.Course;
 
-public interface CourseRepository extends JpaRepository<Course, String> {
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface CourseRepository extends JpaRepository<Course, UUID> {
+    List<Course> findByOrderByIdAsc(Limit limit);
+
+    List<Course> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    @Query("SELECT c.id FROM Course c")
+    List<UUID> findAllIds();
+
+    @Query("SELECT c.id FROM Course c WHERE c.name = :name")
+    List<UUID> findIdsByName(@Param("name") String name);
+
+    @Query("SELECT c.name FROM Course c WHERE c.id IN :ids")
+    List<String> findNamesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_courses"))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO student_courses (student_id, course_id) " +
+                   "SELECT s.student_id, c.course_id FROM students s, courses c " +
+                   "WHERE s.student_id = :studentId AND c.course_id = :courseId " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int enrollStudent(@Param("studentId") UUID studentId, @Param("courseId") UUID courseId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_courses"))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM student_courses WHERE student_id = :studentId AND course_id = :courseId", nativeQuery = true)
+    int unenrollStudent(@Param("studentId") UUID studentId, @Param("courseId") UUID courseId);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM student_courses WHERE student_id = :studentId AND course_id = :courseId)", nativeQuery = true)
+    boolean existsEnrollment(@Param("studentId") UUID studentId, @Param("courseId") UUID courseId);
+
+    @Query(value = "SELECT course_id FROM student_courses WHERE student_id = :studentId", nativeQuery = true)
+    List<UUID> findIdsByStudentId(@Param("studentId") UUID studentId);
+
+    @Query(value = "SELECT COUNT(*) FROM student_courses WHERE course_id = :courseId", nativeQuery = true)
+    long countEnrollments(@Param("courseId") UUID courseId);
+
+    @Query(value = "SELECT student_id FROM student_courses WHERE course_id IN (:courseIds) " +
+                   "GROUP BY student_id HAVING COUNT(*) = :courseCount ORDER BY student_id", nativeQuery = true)
+    List<UUID> findStudentIdsEnrolledInAll(@Param("courseIds") Collection<UUID> courseIds, @Param("courseCount") long courseCount);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_courses"))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM student_courses", nativeQuery = true)
+    int deleteAllEnrollments();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Course c")
+    int deleteAllCourses();
+
+    // student_courses rows go with the course through ON DELETE CASCADE
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "courses"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_courses")
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM courses WHERE course_id = :id", nativeQuery = true)
+    int deleteCourseById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "TRUNCATE TABLE student_courses, students, courses", nativeQuery = true)
+    void truncateCoursesAndStudents();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Course c SET c.name = :name, c.description = :description WHERE c.id = :id")
+    int updateById(@Param("id") UUID id, @Param("name") String name, @Param("description") String description);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "courses"))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE courses SET " +
+                   "course_name = COALESCE(CAST(:name AS VARCHAR), course_name), " +
+                   "course_description = COALESCE(CAST(:description AS TEXT), course_description) " +
+                   "WHERE course_id = :id", nativeQuery = true)
+    int patchById(@Param("id") UUID id, @Param("name") String name, @Param("description") String description);
 }
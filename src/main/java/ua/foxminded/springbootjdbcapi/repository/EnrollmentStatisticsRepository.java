@@ -0,0 +1,53 @@
+package ua.foxminded.springbootjdbcapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ua.foxminded.springbootjdbcapi.model.CourseEnrollmentCount;
+import ua.foxminded.springbootjdbcapi.model.CourseEnrollmentStatistics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Repository
+public class EnrollmentStatisticsRepository {
+    private static final List<String> VIEWS = List.of("course_enrollment_stats", "group_course_enrollment_stats", "enrollment_summary");
+
+    private static final String FIND_COURSE_COUNTS = "SELECT course_id, course_name, student_count FROM course_enrollment_stats ORDER BY course_name, course_id";
+    private static final String FIND_GROUP_COURSE_COUNTS = "SELECT group_id, course_id, student_count FROM group_course_enrollment_stats";
+    private static final String FIND_SUMMARY = "SELECT student_count, enrollment_count, refreshed_at FROM enrollment_summary";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public EnrollmentStatisticsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public CourseEnrollmentStatistics findStatistics() {
+        List<CourseEnrollmentCount> courses = jdbcTemplate.query(FIND_COURSE_COUNTS, (rs, rowNum) ->
+                new CourseEnrollmentCount(rs.getString("course_id"), rs.getString("course_name"), rs.getLong("student_count")));
+
+        Map<String, Map<String, Long>> matrix = new TreeMap<>();
+        jdbcTemplate.query(FIND_GROUP_COURSE_COUNTS, (RowCallbackHandler) rs -> matrix
+                .computeIfAbsent(rs.getString("group_id"), groupId -> new TreeMap<>())
+                .put(rs.getString("course_id"), rs.getLong("student_count")));
+
+        return jdbcTemplate.queryForObject(FIND_SUMMARY, (rs, rowNum) -> {
+            long students = rs.getLong("student_count");
+            double average = students == 0 ? 0 : (double) rs.getLong("enrollment_count") / students;
+            Instant refreshedAt = rs.getTimestamp("refreshed_at").toInstant();
+            return new CourseEnrollmentStatistics(courses, average, matrix, refreshedAt);
+        });
+    }
+
+    // CONCURRENTLY swaps in the new contents without blocking readers of the views
+    public void refresh() {
+        for (String view : VIEWS) {
+            jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + view);
+        }
+    }
+}
@@ -1,7 +1,65 @@
 package ua.foxminded.springbootjdbcapi.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ua.foxminded.springbootjdbcapi.model.Group;
+import ua.foxminded.springbootjdbcapi.model.GroupStudentCount;
 
-public interface GroupRepository extends JpaRepository<Group, String> {
-}
\ No newline at end of file
+import java.util.List;
+import java.util.UUID;
+
+public interface GroupRepository extends JpaRepository<Group, UUID> {
+    // student_count is kept current by triggers on students, so this is a range scan instead of a join and aggregate
+    @Query(value = "SELECT group_id AS \"id\", group_name AS \"groupName\", student_count AS \"studentCount\" " +
+                   "FROM groups " +
+                   "WHERE student_count <= :studentCount " +
+                   "ORDER BY group_id",
+           nativeQuery = true)
+    List<GroupStudentCount> findAllWithStudentCountLessThanOrEqual(@Param("studentCount") long studentCount);
+
+    @Query(value = "SELECT g.group_id FROM groups g " +
+                   "WHERE g.student_count <> (SELECT COUNT(*) FROM students s WHERE s.group_id = g.group_id)",
+           nativeQuery = true)
+    List<UUID> findIdsWithStudentCountDrift();
+
+    // same key order as the student_count triggers take their locks in, so the two cannot deadlock
+    @Query(value = "SELECT group_id FROM groups WHERE group_id IN (:ids) ORDER BY group_id FOR UPDATE", nativeQuery = true)
+    List<UUID> lockByIdIn(@Param("ids") List<UUID> ids);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE groups g " +
+                   "SET student_count = (SELECT COUNT(*) FROM students s WHERE s.group_id = g.group_id) " +
+                   "WHERE g.group_id IN (:ids)",
+           nativeQuery = true)
+    int recountStudents(@Param("ids") List<UUID> ids);
+
+    List<Group> findByOrderByIdAsc(Limit limit);
+
+    List<Group> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    @Query("SELECT g.id FROM Group g")
+    List<UUID> findAllIds();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Group g")
+    int deleteAllGroups();
+
+    // members keep their rows, ON DELETE SET NULL detaches them and the triggers settle student_count
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "groups"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students")
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM groups WHERE group_id = :id", nativeQuery = true)
+    int deleteGroupById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Group g SET g.groupName = :groupName WHERE g.id = :id")
+    int updateById(@Param("id") UUID id, @Param("groupName") String groupName);
+}
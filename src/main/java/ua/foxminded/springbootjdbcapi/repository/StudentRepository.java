@@ -1,7 +1,91 @@
 package ua.foxminded.springbootjdbcapi.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ua.foxminded.springbootjdbcapi.model.Group;
 import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.model.StudentDetails;
 
-public interface StudentRepository extends JpaRepository<Student, String> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface StudentRepository extends JpaRepository<Student, UUID> {
+    // filters student_courses by its partition key, so only the partitions holding these courses are scanned;
+    // the rows are projected straight into records, so the roster cache never holds managed entities
+    @Query("SELECT DISTINCT new ua.foxminded.springbootjdbcapi.model.StudentDetails(s.id, g.id, g.groupName, s.firstName, s.lastName) " +
+           "FROM Student s " +
+           "JOIN s.courses c " +
+           "LEFT JOIN s.group g " +
+           "WHERE c.id IN :courseIds " +
+           "ORDER BY s.id")
+    List<StudentDetails> findDetailsByCourseIdIn(@Param("courseIds") Collection<UUID> courseIds);
+
+    @Override
+    @EntityGraph("Student.detail")
+    List<Student> findAll();
+
+    @Override
+    @EntityGraph("Student.detail")
+    Optional<Student> findById(UUID id);
+
+    @EntityGraph("Student.detail")
+    List<Student> findByOrderByIdAsc(Limit limit);
+
+    @EntityGraph("Student.detail")
+    List<Student> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    // an enrollment insert checks its foreign key with FOR KEY SHARE, so holding this lock keeps new ones out
+    @Query(value = "SELECT student_id FROM students WHERE student_id = :id FOR UPDATE", nativeQuery = true)
+    Optional<UUID> lockById(@Param("id") UUID id);
+
+    @Query("SELECT s.id FROM Student s")
+    List<UUID> findAllIds();
+
+    @Query("SELECT s.id FROM Student s WHERE s.group.id = :groupId")
+    List<UUID> findIdsByGroupId(@Param("groupId") UUID groupId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students"))
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO students (student_id, group_id, first_name, last_name) " +
+                   "VALUES (:id, CAST(:groupId AS UUID), :firstName, :lastName) " +
+                   "ON CONFLICT (student_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id, @Param("groupId") UUID groupId,
+                       @Param("firstName") String firstName, @Param("lastName") String lastName);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Student s")
+    int deleteAllStudents();
+
+    // student_courses rows go with the student through ON DELETE CASCADE
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_courses")
+    })
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM students WHERE student_id = :id", nativeQuery = true)
+    int deleteStudentById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Student s SET s.group = :group, s.firstName = :firstName, s.lastName = :lastName WHERE s.id = :id")
+    int updateById(@Param("id") UUID id, @Param("group") Group group,
+                   @Param("firstName") String firstName, @Param("lastName") String lastName);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students"))
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE students SET " +
+                   "group_id = COALESCE(CAST(:groupId AS UUID), group_id), " +
+                   "first_name = COALESCE(CAST(:firstName AS VARCHAR), first_name), " +
+                   "last_name = COALESCE(CAST(:lastName AS VARCHAR), last_name) " +
+                   "WHERE student_id = :id", nativeQuery = true)
+    int patchById(@Param("id") UUID id, @Param("groupId") UUID groupId,
+                  @Param("firstName") String firstName, @Param("lastName") String lastName);
 }
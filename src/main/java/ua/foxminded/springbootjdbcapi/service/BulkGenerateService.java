@@ -0,0 +1,194 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ua.foxminded.springbootjdbcapi.model.Course;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.Group;
+import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.model.UuidV7Generator;
+import ua.foxminded.springbootjdbcapi.repository.BulkRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static ua.foxminded.springbootjdbcapi.service.GenerateService.COURSE_NAMES;
+import static ua.foxminded.springbootjdbcapi.service.GenerateService.FIRST_NAMES;
+import static ua.foxminded.springbootjdbcapi.service.GenerateService.LAST_NAMES;
+import static ua.foxminded.springbootjdbcapi.service.GenerateService.generateRandomName;
+
+@Service
+public class BulkGenerateService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkGenerateService.class);
+    // ids are v7 like the application's, but counted from a fixed instant so a seed always yields the same dataset
+    private static final long ID_BASE_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private final BulkRepository bulkRepository;
+    private final int groupCount;
+    private final int courseCount;
+    private final int studentCount;
+    private final int maxCoursesPerStudent;
+    private final int chunkSize;
+    private final int maxConnections;
+    private final long seed;
+
+    @Autowired
+    public BulkGenerateService(BulkRepository bulkRepository,
+                               @Value("${school.bulk.groups:10}") int groupCount,
+                               @Value("${school.bulk.courses:10}") int courseCount,
+                               @Value("${school.bulk.students:200}") int studentCount,
+                               @Value("${school.bulk.max-courses-per-student:3}") int maxCoursesPerStudent,
+                               @Value("${school.bulk.chunk-size:10000}") int chunkSize,
+                               @Value("${school.bulk.max-connections:4}") int maxConnections,
+                               @Value("${school.bulk.seed:42}") long seed) {
+        if (groupCount <= 0 || courseCount <= 0 || studentCount < 0 || chunkSize <= 0 || maxConnections <= 0) {
+            throw new IllegalArgumentException("Bulk generation row counts must be positive!");
+        }
+        if (maxCoursesPerStudent < 1 || maxCoursesPerStudent > courseCount) {
+            throw new IllegalArgumentException("Max courses per student must be between 1 and " + courseCount + "!");
+        }
+
+        this.bulkRepository = bulkRepository;
+        this.groupCount = groupCount;
+        this.courseCount = courseCount;
+        this.studentCount = studentCount;
+        this.maxCoursesPerStudent = maxCoursesPerStudent;
+        this.chunkSize = chunkSize;
+        this.maxConnections = maxConnections;
+        this.seed = seed;
+    }
+
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        List<Group> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new Group(sequentialId(random, i), generateRandomName(random::nextInt)));
+        }
+        long start = System.nanoTime();
+        int insertedGroups = bulkRepository.insertGroups(groups);
+        report("groups", insertedGroups, System.nanoTime() - start);
+
+        List<Course> courses = new ArrayList<>(courseCount);
+        for (int i = 0; i < courseCount; i++) {
+            courses.add(createCourse(sequentialId(random, i), i));
+        }
+        start = System.nanoTime();
+        int insertedCourses = bulkRepository.insertCourses(courses);
+        report("courses", insertedCourses, System.nanoTime() - start);
+
+        // every chunk gets its own generator, split off in chunk order so the dataset does not depend on scheduling
+        int chunks = (studentCount + chunkSize - 1) / chunkSize;
+        List<SplittableRandom> chunkRandoms = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            chunkRandoms.add(random.split());
+        }
+
+        LongAdder students = new LongAdder();
+        LongAdder enrollments = new LongAdder();
+        int threads = Math.min(maxConnections, Math.max(chunks, 1));
+
+        start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                int offset = i * chunkSize;
+                int size = Math.min(chunkSize, studentCount - offset);
+                SplittableRandom chunkRandom = chunkRandoms.get(i);
+
+                futures.add(executor.submit(() -> {
+                    List<Student> chunk = createStudents(chunkRandom, offset, size, groups);
+                    students.add(bulkRepository.insertStudents(chunk));
+                    enrollments.add(bulkRepository.insertEnrollments(assignCourses(chunkRandom, chunk, courses)));
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        report("students", students.sum(), elapsed);
+        report("enrollments", enrollments.sum(), elapsed);
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk generation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Bulk generation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // the row's position in the table orders the id, chunks own disjoint ranges so parallel inserts stay near
+    // their own right edge of the key index instead of landing on random pages
+    private static UUID sequentialId(SplittableRandom random, long sequence) {
+        return UuidV7Generator.sequential(ID_BASE_MILLIS, sequence, random.nextLong());
+    }
+
+    private static Course createCourse(UUID id, int index) {
+        String name = COURSE_NAMES[index % COURSE_NAMES.length];
+        if (index >= COURSE_NAMES.length) {
+            name += " " + (index / COURSE_NAMES.length + 1);
+        }
+        return new Course(id, name, name + " Basics");
+    }
+
+    private static List<Student> createStudents(SplittableRandom random, int offset, int size, List<Group> groups) {
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(sequentialId(random, offset + i), groups.get(random.nextInt(groups.size())),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)]));
+        }
+        return students;
+    }
+
+    private List<Enrollment> assignCourses(SplittableRandom random, List<Student> students, List<Course> courses) {
+        List<Enrollment> enrollments = new ArrayList<>(students.size() * maxCoursesPerStudent);
+        int[] picked = new int[maxCoursesPerStudent];
+
+        for (Student student : students) {
+            int coursesCount = random.nextInt(maxCoursesPerStudent) + 1;
+            for (int i = 0; i < coursesCount; i++) {
+                int courseIndex;
+                do {
+                    courseIndex = random.nextInt(courses.size());
+                } while (contains(picked, i, courseIndex));
+                picked[i] = courseIndex;
+                enrollments.add(new Enrollment(student.getId(), courses.get(courseIndex).getId()));
+            }
+        }
+
+        return enrollments;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private static void report(String table, long rows, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        logger.info("Inserted {} {} in {} ms ({} rows/s)", rows, table, Math.round(seconds * 1000), Math.round(rows / seconds));
+    }
+}
@@ -0,0 +1,45 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.repository.CourseRepository;
+
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+public class CourseRosterCacheEvictor {
+    private final CourseRepository courseRepository;
+    private final Cache courseRosters;
+
+    @Autowired
+    public CourseRosterCacheEvictor(CourseRepository courseRepository, CacheManager cacheManager) {
+        this.courseRepository = courseRepository;
+        this.courseRosters = cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        Set<UUID> courseIds = event.courseIds();
+        if (courseIds.isEmpty()) {
+            return;
+        }
+
+        // runs after commit, so evict immediately instead of deferring to a synchronization that will never fire
+        for (String courseName : courseRepository.findNamesByIdIn(courseIds)) {
+            courseRosters.evictIfPresent(courseName);
+        }
+    }
+
+    // every roster went with the enrollments, so the names are not worth looking up
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentsReset(EnrollmentsResetEvent event) {
+        courseRosters.clear();
+    }
+}
@@ -1,78 +1,109 @@
 package ua.foxminded.springbootjdbcapi.service;
 
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
 import ua.foxminded.springbootjdbcapi.model.Course;
-import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.model.CourseDeletedEvent;
+import ua.foxminded.springbootjdbcapi.model.CourseEnrollmentStatistics;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.model.EntityIds;
+import ua.foxminded.springbootjdbcapi.model.KeysetPage;
 import ua.foxminded.springbootjdbcapi.repository.CourseRepository;
+import ua.foxminded.springbootjdbcapi.repository.EnrollmentStatisticsRepository;
 
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class CourseService {
     private final CourseRepository courseRepository;
+    private final EntityCacheService entityCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EnrollmentStatisticsRepository statisticsRepository;
 
     @Autowired
-    public CourseService(CourseRepository courseRepository) {
+    public CourseService(CourseRepository courseRepository, EntityCacheService entityCacheService,
+                         ApplicationEventPublisher eventPublisher, EnrollmentStatisticsRepository statisticsRepository) {
         this.courseRepository = courseRepository;
+        this.entityCacheService = entityCacheService;
+        this.eventPublisher = eventPublisher;
+        this.statisticsRepository = statisticsRepository;
     }
 
     @Transactional
     public boolean save(Course course) {
         courseRepository.save(course);
 
-        boolean exists = courseRepository.existsById(course.getId());
-        if (!exists) {
-            throw new IllegalStateException("Course was not created!");
-        }
-
         return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSE_ROSTERS_CACHE, allEntries = true)
     public boolean deleteAll() {
-        courseRepository.deleteAll();
+        courseRepository.deleteAllEnrollments();
+        courseRepository.deleteAllCourses();
+        entityCacheService.evictAllRosters();
+        eventPublisher.publishEvent(new EnrollmentsResetEvent());
 
-        return courseRepository.findAll().isEmpty();
+        return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSE_ROSTERS_CACHE, allEntries = true)
     public boolean update(Course course) {
-        if (!courseRepository.existsById(course.getId())) {
+        if (courseRepository.updateById(course.getId(), course.getName(), course.getDescription()) == 0) {
             throw new NoSuchElementException("Course with ID " + course.getId() + " does not exist.");
         }
-        courseRepository.save(course);
-        boolean updated = courseRepository.existsById(course.getId());
-        if (!updated) {
-            throw new IllegalStateException("Failed to update course with ID " + course.getId() + ".");
-        }
+
         return true;
     }
 
     @Transactional
-    public boolean deleteById(String id) {
-        Optional<Course> optionalCourse = courseRepository.findById(id);
-
-        if (optionalCourse.isPresent()) {
-            Course course = optionalCourse.get();
+    @CacheEvict(cacheNames = CacheConfig.COURSE_ROSTERS_CACHE, allEntries = true)
+    public boolean patch(Course course) {
+        if (courseRepository.patchById(course.getId(), course.getName(), course.getDescription()) == 0) {
+            throw new NoSuchElementException("Course with ID " + course.getId() + " does not exist.");
+        }
 
-            for (Student student : course.getStudents()) {
-                course.getStudents().remove(student);
-            }
+        return true;
+    }
 
-            courseRepository.deleteById(id);
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSE_ROSTERS_CACHE, allEntries = true)
+    public boolean deleteById(String id) {
+        UUID courseId = EntityIds.parse(id);
 
-            return !courseRepository.existsById(id);
-        } else {
+        // ON DELETE CASCADE drops the enrollments, so the roster is never loaded
+        if (courseRepository.deleteCourseById(courseId) == 0) {
             return false;
         }
+
+        entityCacheService.evictCourse(courseId);
+        eventPublisher.publishEvent(new CourseDeletedEvent(courseId));
+
+        return true;
     }
 
     public boolean existsById(String id) {
-        return courseRepository.existsById(id);
+        return courseRepository.existsById(EntityIds.parse(id));
+    }
+
+    public KeysetPage<Course> getCoursesPage(String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0!");
+        }
+
+        List<Course> courses = cursor == null
+                ? courseRepository.findByOrderByIdAsc(Limit.of(pageSize + 1))
+                : courseRepository.findByIdGreaterThanOrderByIdAsc(EntityIds.parse(cursor), Limit.of(pageSize + 1));
+        return KeysetPage.of(courses, pageSize, course -> course.getId().toString());
     }
 
     public List<Course> getAllCourses() {
@@ -83,8 +114,9 @@ public class CourseService {
         return courses;
     }
 
+    @Transactional(readOnly = true)
     public Course getById(String id) {
-        Optional<Course> course = courseRepository.findById(id);
+        Optional<Course> course = courseRepository.findById(EntityIds.parse(id));
         if (course.isEmpty()) {
             throw new NoSuchElementException("There is no such course with ID: " + id);
         }
@@ -92,6 +124,11 @@ public class CourseService {
     }
 
     public List<String> getAllIds(){
-        return courseRepository.findAll().stream().map(Course::getId).toList();
+        return courseRepository.findAllIds().stream().map(UUID::toString).toList();
+    }
+
+    // served from materialized views, so the numbers lag writes by up to one refresh
+    public CourseEnrollmentStatistics getEnrollmentStatistics() {
+        return statisticsRepository.findStatistics();
     }
 }
@@ -0,0 +1,461 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.foxminded.springbootjdbcapi.model.CourseDeletedEvent;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.repository.BulkRepository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class EnrollmentIndex {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentIndex.class);
+    private static final int INITIAL_WORDS = 16;
+    private static final int INITIAL_SLOTS = 1024;
+    // uuid columns sort as unsigned bytes, UUID.compareTo compares signed longs
+    private static final Comparator<UUID> DATABASE_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final BulkRepository bulkRepository;
+    private final TransactionTemplate primaryReads;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // serialises loads, so queries and verify() never stream the table twice at the same time
+    private final Object buildMonitor = new Object();
+    private final AtomicLong changes = new AtomicLong();
+
+    // guarded by lock; null until built, swapped whole by a rebuild
+    private Bitmaps bitmaps;
+    // guarded by lock; collects the changes committed while a load runs, so they can be replayed onto its result
+    private List<Consumer<Bitmaps>> pending;
+    private long resets;
+
+    @Autowired
+    public EnrollmentIndex(BulkRepository bulkRepository, PlatformTransactionManager transactionManager) {
+        this.bulkRepository = bulkRepository;
+        // a query inside a read-only transaction would load the index over that transaction's replica connection and
+        // miss whatever the replica has not replayed yet, so loads suspend the caller's transaction and read the primary
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    public boolean isEnrolled(UUID studentId, UUID courseId) {
+        return read(current -> current.isEnrolled(studentId, courseId));
+    }
+
+    public long countStudents(UUID courseId) {
+        return read(current -> current.countStudents(courseId));
+    }
+
+    public List<UUID> findStudentsInAllCourses(Collection<UUID> courseIds) {
+        if (courseIds.isEmpty()) {
+            return List.of();
+        }
+
+        return read(current -> current.findStudentsInAllCourses(courseIds));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        apply(current -> {
+            for (Enrollment enrollment : event.enrolled()) {
+                current.set(enrollment.studentId(), enrollment.courseId());
+            }
+            for (Enrollment enrollment : event.unenrolled()) {
+                current.clear(enrollment.studentId(), enrollment.courseId());
+            }
+        });
+    }
+
+    // the database cascaded the enrollments away, so the whole bitmap goes without knowing who was in it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseDeleted(CourseDeletedEvent event) {
+        apply(current -> current.courseBitmaps.remove(event.courseId()));
+    }
+
+    // a load that started before the reset may have read the old rows, so it is thrown away rather than replayed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentsReset(EnrollmentsResetEvent event) {
+        changes.incrementAndGet();
+        lock.writeLock().lock();
+        try {
+            bitmaps = null;
+            resets++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${school.enrollment-index.verify-interval:PT5M}",
+               initialDelayString = "${school.enrollment-index.verify-interval:PT5M}")
+    public boolean verify() {
+        long changesBefore = changes.get();
+        // a commit seen by the count may not have reached its listener yet, so only a mismatch that
+        // survives a second count with no change applied in between is treated as drift
+        if (drifted(countEnrollmentsByCourse()) && drifted(countEnrollmentsByCourse())
+                && changes.get() == changesBefore) {
+            logger.warn("Enrollment index drifted from student_courses, rebuilding");
+            rebuild();
+            return false;
+        }
+
+        // students who left every course keep their ordinal until a rebuild hands out dense ones again
+        if (sparse()) {
+            logger.info("Most enrollment index ordinals belong to unenrolled students, compacting");
+            rebuild();
+        }
+        return true;
+    }
+
+    // loads the index unless it is already built, so the first query after startup does not pay for the scan
+    public void warm() {
+        synchronized (buildMonitor) {
+            if (!isBuilt()) {
+                build();
+            }
+        }
+    }
+
+    private Map<UUID, Long> countEnrollmentsByCourse() {
+        return primaryReads.execute(status -> bulkRepository.countEnrollmentsByCourse());
+    }
+
+    private boolean drifted(Map<UUID, Long> expected) {
+        lock.readLock().lock();
+        try {
+            return bitmaps != null && !Objects.equals(expected, bitmaps.counts());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean sparse() {
+        lock.readLock().lock();
+        try {
+            return bitmaps != null && bitmaps.isSparse();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        synchronized (buildMonitor) {
+            build();
+        }
+    }
+
+    private <T> T read(Function<Bitmaps, T> query) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (bitmaps != null) {
+                    return query.apply(bitmaps);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            warm();
+        }
+    }
+
+    private void apply(Consumer<Bitmaps> change) {
+        changes.incrementAndGet();
+        lock.writeLock().lock();
+        try {
+            if (bitmaps != null) {
+                change.accept(bitmaps);
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isBuilt() {
+        lock.readLock().lock();
+        try {
+            return bitmaps != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // streams the table into fresh bitmaps without the lock, so queries keep using the current ones meanwhile
+    private void build() {
+        long resetsBefore;
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+            resetsBefore = resets;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        Bitmaps loaded = new Bitmaps();
+        try {
+            primaryReads.executeWithoutResult(status -> bulkRepository.forEachEnrollment(loaded::set));
+        } catch (RuntimeException e) {
+            clearPending();
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (resets == resetsBefore) {
+                pending.forEach(change -> change.accept(loaded));
+                bitmaps = loaded;
+            }
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Built enrollment index for {} students and {} courses in {} ms",
+                loaded.studentOrdinals.size(), loaded.courseBitmaps.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void clearPending() {
+        lock.writeLock().lock();
+        try {
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Bitmaps {
+        // ordinals are dense so a course bitmap needs one bit per student ever seen, not per possible id
+        private final StudentOrdinals studentOrdinals = new StudentOrdinals();
+        private final Map<UUID, LongBuffer> courseBitmaps = new HashMap<>();
+
+        private boolean isEnrolled(UUID studentId, UUID courseId) {
+            int ordinal = studentOrdinals.find(studentId);
+            LongBuffer bitmap = courseBitmaps.get(courseId);
+            return ordinal >= 0 && bitmap != null && get(bitmap, ordinal);
+        }
+
+        private long countStudents(UUID courseId) {
+            LongBuffer bitmap = courseBitmaps.get(courseId);
+            return bitmap == null ? 0 : cardinality(bitmap);
+        }
+
+        private List<UUID> findStudentsInAllCourses(Collection<UUID> courseIds) {
+            List<LongBuffer> bitmaps = new ArrayList<>(courseIds.size());
+            int words = Integer.MAX_VALUE;
+            for (UUID courseId : courseIds) {
+                LongBuffer bitmap = courseBitmaps.get(courseId);
+                if (bitmap == null) {
+                    return List.of();
+                }
+                bitmaps.add(bitmap);
+                words = Math.min(words, bitmap.capacity());
+            }
+
+            List<UUID> result = new ArrayList<>();
+            for (int word = 0; word < words; word++) {
+                long bits = -1L;
+                for (LongBuffer bitmap : bitmaps) {
+                    bits &= bitmap.get(word);
+                }
+                while (bits != 0) {
+                    result.add(studentOrdinals.get(word * Long.SIZE + Long.numberOfTrailingZeros(bits)));
+                    bits &= bits - 1;
+                }
+            }
+            result.sort(DATABASE_ORDER);
+            return result;
+        }
+
+        private Map<UUID, Long> counts() {
+            Map<UUID, Long> counts = new HashMap<>();
+            courseBitmaps.forEach((courseId, bitmap) -> {
+                long count = cardinality(bitmap);
+                if (count > 0) {
+                    counts.put(courseId, count);
+                }
+            });
+            return counts;
+        }
+
+        // half the ordinals unenrolled from everything means the bitmaps are mostly zeros
+        private boolean isSparse() {
+            int words = 0;
+            for (LongBuffer bitmap : courseBitmaps.values()) {
+                words = Math.max(words, bitmap.capacity());
+            }
+
+            long live = 0;
+            for (int word = 0; word < words; word++) {
+                long enrolled = 0;
+                for (LongBuffer bitmap : courseBitmaps.values()) {
+                    if (word < bitmap.capacity()) {
+                        enrolled |= bitmap.get(word);
+                    }
+                }
+                live += Long.bitCount(enrolled);
+            }
+
+            long dead = studentOrdinals.size() - live;
+            return dead > live && dead >= INITIAL_WORDS * Long.SIZE;
+        }
+
+        private void set(UUID studentId, UUID courseId) {
+            int ordinal = studentOrdinals.add(studentId);
+
+            LongBuffer bitmap = courseBitmaps.get(courseId);
+            int word = ordinal / Long.SIZE;
+            if (bitmap == null || word >= bitmap.capacity()) {
+                bitmap = grow(bitmap, word + 1);
+                courseBitmaps.put(courseId, bitmap);
+            }
+            bitmap.put(word, bitmap.get(word) | (1L << ordinal));
+        }
+
+        private void clear(UUID studentId, UUID courseId) {
+            int ordinal = studentOrdinals.find(studentId);
+            LongBuffer bitmap = courseBitmaps.get(courseId);
+            if (ordinal < 0 || bitmap == null || ordinal / Long.SIZE >= bitmap.capacity()) {
+                return;
+            }
+
+            int word = ordinal / Long.SIZE;
+            bitmap.put(word, bitmap.get(word) & ~(1L << ordinal));
+        }
+    }
+
+    // an open-addressed UUID to ordinal table kept off-heap like the bitmaps: slots holds ordinal + 1 with 0 for
+    // empty, ids holds the two halves of each student id at 2 * ordinal, so a million students are two buffers
+    private static final class StudentOrdinals {
+        private IntBuffer slots = allocateInts(INITIAL_SLOTS);
+        private LongBuffer ids = grow(null, INITIAL_SLOTS);
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private UUID get(int ordinal) {
+            return new UUID(ids.get(2 * ordinal), ids.get(2 * ordinal + 1));
+        }
+
+        private int find(UUID studentId) {
+            int slot = slot(slots, studentId);
+            int entry = slots.get(slot);
+            return entry == 0 ? -1 : entry - 1;
+        }
+
+        private int add(UUID studentId) {
+            int slot = slot(slots, studentId);
+            int entry = slots.get(slot);
+            if (entry != 0) {
+                return entry - 1;
+            }
+
+            int ordinal = size++;
+            if (2 * size > ids.capacity()) {
+                ids = grow(ids, 2 * size);
+            }
+            ids.put(2 * ordinal, studentId.getMostSignificantBits());
+            ids.put(2 * ordinal + 1, studentId.getLeastSignificantBits());
+            slots.put(slot, ordinal + 1);
+
+            // probing stays short while at most half the slots are taken
+            if (2 * size > slots.capacity()) {
+                rehash();
+            }
+            return ordinal;
+        }
+
+        private void rehash() {
+            IntBuffer grown = allocateInts(slots.capacity() * 2);
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                grown.put(slot(grown, get(ordinal)), ordinal + 1);
+            }
+            slots = grown;
+        }
+
+        // linear probing from the mixed hash until the id or an empty slot turns up
+        private int slot(IntBuffer table, UUID studentId) {
+            long msb = studentId.getMostSignificantBits();
+            long lsb = studentId.getLeastSignificantBits();
+            int mask = table.capacity() - 1;
+            int slot = (int) mix(msb ^ mix(lsb)) & mask;
+            while (true) {
+                int entry = table.get(slot);
+                if (entry == 0 || ids.get(2 * (entry - 1)) == msb && ids.get(2 * (entry - 1) + 1) == lsb) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    // time-ordered ids share their high bits, so the halves are scrambled before they pick a slot
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static IntBuffer allocateInts(int ints) {
+        return ByteBuffer.allocateDirect(ints * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static boolean get(LongBuffer bitmap, int ordinal) {
+        int word = ordinal / Long.SIZE;
+        return word < bitmap.capacity() && (bitmap.get(word) & (1L << ordinal)) != 0;
+    }
+
+    private static long cardinality(LongBuffer bitmap) {
+        long count = 0;
+        for (int word = 0; word < bitmap.capacity(); word++) {
+            count += Long.bitCount(bitmap.get(word));
+        }
+        return count;
+    }
+
+    // bitmaps live in direct memory so millions of enrollments add no heap objects for the collector to trace
+    private static LongBuffer grow(LongBuffer bitmap, int minWords) {
+        int words = Math.max(INITIAL_WORDS, bitmap == null ? 0 : bitmap.capacity());
+        while (words < minWords) {
+            words *= 2;
+        }
+
+        LongBuffer grown = ByteBuffer.allocateDirect(words * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        if (bitmap != null) {
+            for (int word = 0; word < bitmap.capacity(); word++) {
+                grown.put(word, bitmap.get(word));
+            }
+        }
+        return grown;
+    }
+}
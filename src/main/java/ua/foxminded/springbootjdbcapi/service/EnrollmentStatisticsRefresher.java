@@ -0,0 +1,78 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.foxminded.springbootjdbcapi.model.CourseDeletedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.repository.EnrollmentStatisticsRepository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class EnrollmentStatisticsRefresher {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentStatisticsRefresher.class);
+
+    private final EnrollmentStatisticsRepository statisticsRepository;
+    private final long refreshAfterChanges;
+    private final long refreshIntervalNanos;
+    private final AtomicLong pendingChanges = new AtomicLong();
+    private volatile long lastRefreshNanos = System.nanoTime();
+
+    @Autowired
+    public EnrollmentStatisticsRefresher(EnrollmentStatisticsRepository statisticsRepository,
+                                         @Value("${school.enrollment-statistics.refresh-after-changes:1000}") long refreshAfterChanges,
+                                         @Value("${school.enrollment-statistics.refresh-interval:PT10M}") Duration refreshInterval) {
+        this.statisticsRepository = statisticsRepository;
+        this.refreshAfterChanges = refreshAfterChanges;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        pendingChanges.addAndGet(event.enrolled().size() + event.unenrolled().size());
+    }
+
+    // how many enrollments the cascade removed is unknown, so treat it like a reset
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseDeleted(CourseDeletedEvent event) {
+        pendingChanges.accumulateAndGet(refreshAfterChanges, Math::max);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentsReset(EnrollmentsResetEvent event) {
+        pendingChanges.accumulateAndGet(refreshAfterChanges, Math::max);
+    }
+
+    // polled often and cheap when nothing is due, so a burst of enrollments is reflected long before the interval
+    @Scheduled(fixedDelayString = "${school.enrollment-statistics.poll-interval:PT10S}")
+    public boolean refreshIfDue() {
+        if (pendingChanges.get() < refreshAfterChanges && System.nanoTime() - lastRefreshNanos < refreshIntervalNanos) {
+            return false;
+        }
+
+        refresh();
+        return true;
+    }
+
+    public synchronized void refresh() {
+        long changes = pendingChanges.getAndSet(0);
+        long start = System.nanoTime();
+
+        try {
+            statisticsRepository.refresh();
+        } catch (RuntimeException e) {
+            pendingChanges.addAndGet(changes);
+            throw e;
+        }
+
+        lastRefreshNanos = System.nanoTime();
+        logger.debug("Refreshed enrollment statistics after {} changes in {} ms", changes, (lastRefreshNanos - start) / 1_000_000);
+    }
+}
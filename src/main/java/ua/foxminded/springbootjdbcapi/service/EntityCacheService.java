@@ -0,0 +1,67 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ua.foxminded.springbootjdbcapi.model.Course;
+import ua.foxminded.springbootjdbcapi.model.Group;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+public class EntityCacheService {
+    private static final String COURSE_STUDENTS_ROLE = Course.class.getName() + ".students";
+
+    private final Cache cache;
+
+    @Autowired
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    public void evictRoster(UUID courseId) {
+        evictRosters(List.of(courseId));
+    }
+
+    public void evictRosters(Collection<UUID> courseIds) {
+        Set<UUID> ids = Set.copyOf(courseIds);
+        runNowAndAfterCommit(() -> ids.forEach(id -> cache.evictCollectionData(COURSE_STUDENTS_ROLE, id)));
+    }
+
+    // a native delete leaves the row in its region, and the cascade took the roster with it
+    public void evictCourse(UUID courseId) {
+        runNowAndAfterCommit(() -> {
+            cache.evictEntityData(Course.class, courseId);
+            cache.evictCollectionData(COURSE_STUDENTS_ROLE, courseId);
+        });
+    }
+
+    public void evictGroup(UUID groupId) {
+        runNowAndAfterCommit(() -> cache.evictEntityData(Group.class, groupId));
+    }
+
+    public void evictAllRosters() {
+        runNowAndAfterCommit(() -> cache.evictCollectionData(COURSE_STUDENTS_ROLE));
+    }
+
+    // native enrollment writes bypass Hibernate's soft locks, so a concurrent reader could re-cache
+    // the old roster before we commit; evicting again once the transaction is done closes that window
+    private static void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
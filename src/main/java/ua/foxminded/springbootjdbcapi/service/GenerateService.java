@@ -3,17 +3,34 @@ package ua.foxminded.springbootjdbcapi.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ua.foxminded.springbootjdbcapi.model.Course;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
 import ua.foxminded.springbootjdbcapi.model.Group;
 import ua.foxminded.springbootjdbcapi.model.Student;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.IntUnaryOperator;
 
 @Service
 public class GenerateService {
     private final static Random random = new Random();
+
+    static final String[] COURSE_NAMES = {"Math", "Biology", "Chemistry", "Physics", "History",
+            "English", "Art", "Computer Science", "Economics", "Music"};
+
+    static final String[] FIRST_NAMES = {
+            "Liam", "Olivia", "Noah", "Emma", "Oliver", "Ava", "Elijah", "Charlotte", "William", "Sophia",
+            "James", "Amelia", "Benjamin", "Isabella", "Lucas", "Mia", "Henry", "Evelyn", "Alexander", "Harper"
+    };
+
+    static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"
+    };
+
     private final StudentService studentService;
     private final SchoolService schoolService;
     private final CourseService courseService;
@@ -33,21 +50,25 @@ public class GenerateService {
     }
 
 
-    private static String generateRandomName() {
+    static String generateRandomName() {
+        return generateRandomName(random::nextInt);
+    }
+
+    static String generateRandomName(IntUnaryOperator random) {
         String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
         String numbers = "0123456789";
 
         StringBuilder nameBuilder = new StringBuilder();
 
         for (int i = 0; i < 2; i++) {
-            int charIndex = random.nextInt(characters.length());
+            int charIndex = random.applyAsInt(characters.length());
             nameBuilder.append(characters.charAt(charIndex));
         }
 
         nameBuilder.append("-");
 
         for (int i = 0; i < 2; i++) {
-            int numIndex = random.nextInt(numbers.length());
+            int numIndex = random.applyAsInt(numbers.length());
             nameBuilder.append(numbers.charAt(numIndex));
         }
 
@@ -66,10 +87,7 @@ public class GenerateService {
     }
 
     public void generateCourses() {
-        String[] courses = {"Math", "Biology", "Chemistry", "Physics", "History",
-                "English", "Art", "Computer Science", "Economics", "Music"};
-
-        for (String i : courses) {
+        for (String i : COURSE_NAMES) {
             boolean wasSaved = courseService.save(new Course(i, i + "Basics"));
 
             if (!wasSaved) {
@@ -79,21 +97,11 @@ public class GenerateService {
     }
 
     public void generateStudents() {
-        String[] firstNames = {
-                "Liam", "Olivia", "Noah", "Emma", "Oliver", "Ava", "Elijah", "Charlotte", "William", "Sophia",
-                "James", "Amelia", "Benjamin", "Isabella", "Lucas", "Mia", "Henry", "Evelyn", "Alexander", "Harper"
-        };
-
-        String[] lastNames = {
-                "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
-                "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"
-        };
+        List<String> groupIds = groupService.getAllIds();
 
         for (int i = 0; i < 200; i++) {
-            String firstName = firstNames[random.nextInt(firstNames.length)];
-            String lastName = lastNames[random.nextInt(lastNames.length)];
-
-            List<String> groupIds = groupService.getAllIds();
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
 
             String groupId = groupIds.get(random.nextInt(groupIds.size()));
 
@@ -110,9 +118,10 @@ public class GenerateService {
         List<String> studentIds = studentService.getAllIds();
         List<String> courseIds = courseService.getAllIds();
 
+        List<Enrollment> enrollments = new ArrayList<>(studentIds.size() * 3);
         for (String studentId : studentIds) {
             Set<String> assignedCourses = new HashSet<>();
-            int coursesCount = random.nextInt(3) + 1;
+            int coursesCount = Math.min(random.nextInt(3) + 1, courseIds.size());
 
             for (int i = 0; i < coursesCount; i++) {
                 String courseId;
@@ -121,12 +130,13 @@ public class GenerateService {
                 } while (assignedCourses.contains(courseId));
                 assignedCourses.add(courseId);
 
-                boolean wasAdded = schoolService.addStudentToCourse(studentId, courseId);
-                if (!wasAdded) {
-                    throw new IllegalStateException("Student with ID: " + studentId +
-                                                    " was not added to course with Id" + courseId);
-                }
+                enrollments.add(new Enrollment(studentId, courseId));
             }
         }
+
+        int added = schoolService.addEnrollments(enrollments);
+        if (added != enrollments.size()) {
+            throw new IllegalStateException("Only " + added + " of " + enrollments.size() + " enrollments were created");
+        }
     }
 }
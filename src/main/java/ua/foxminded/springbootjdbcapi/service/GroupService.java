@@ -1,120 +1,93 @@
 package ua.foxminded.springbootjdbcapi.service;
 
-import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
+import ua.foxminded.springbootjdbcapi.model.EntityIds;
 import ua.foxminded.springbootjdbcapi.model.Group;
-import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.model.GroupStudentCount;
+import ua.foxminded.springbootjdbcapi.model.KeysetPage;
 import ua.foxminded.springbootjdbcapi.repository.GroupRepository;
-import ua.foxminded.springbootjdbcapi.repository.StudentRepository;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class GroupService {
+    private static final Logger logger = LoggerFactory.getLogger(GroupService.class);
 
     private final GroupRepository groupRepository;
-    private final StudentRepository studentRepository;
+    private final EntityCacheService entityCacheService;
 
     @Autowired
-    public GroupService(GroupRepository groupRepository, StudentRepository studentRepository) {
+    public GroupService(GroupRepository groupRepository, EntityCacheService entityCacheService) {
         this.groupRepository = groupRepository;
-        this.studentRepository = studentRepository;
+        this.entityCacheService = entityCacheService;
     }
 
     @Transactional
     public boolean save(Group group) {
         groupRepository.save(group);
 
-        boolean exists = groupRepository.existsById(group.getId());
-        if (!exists) {
-            throw new IllegalStateException("Group was not created!");
-        }
-
         return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.STUDENTS_CACHE, CacheConfig.COURSE_ROSTERS_CACHE}, allEntries = true)
     public boolean deleteAll() {
-        List<Group> groups = groupRepository.findAll();
-        List<Student> students = studentRepository.findAll();
-
-        if (groups.isEmpty()) {
+        if (groupRepository.deleteAllGroups() == 0) {
             throw new NoSuchElementException("No groups to delete");
         }
 
-        for (Group group : groups) {
-            group.getStudents().clear();
-            groupRepository.save(group);
-        }
-
-        for (Student student : students) {
-            student.setGroup(null);
-            studentRepository.save(student);
-        }
-
-        groupRepository.deleteAll();
-
-        boolean allDeleted = groupRepository.findAll().isEmpty();
-        if (!allDeleted) {
-            throw new IllegalStateException("Groups were not deleted");
-        }
-
         return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.STUDENTS_CACHE, CacheConfig.COURSE_ROSTERS_CACHE}, allEntries = true)
     public boolean update(Group group) {
-        if (!groupRepository.existsById(group.getId())) {
+        if (groupRepository.updateById(group.getId(), group.getGroupName()) == 0) {
             throw new NoSuchElementException("Group with ID " + group.getId() + " does not exist.");
         }
 
-        groupRepository.save(group);
-
-        boolean updated = groupRepository.existsById(group.getId());
-        if (!updated) {
-            throw new IllegalStateException("Failed to update group with ID " + group.getId() + ".");
-        }
-
         return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.STUDENTS_CACHE, CacheConfig.COURSE_ROSTERS_CACHE}, allEntries = true)
     public boolean deleteById(String id) {
-        if (!groupRepository.existsById(id)) {
+        UUID groupId = EntityIds.parse(id);
+
+        // ON DELETE SET NULL detaches the students in the same statement
+        if (groupRepository.deleteGroupById(groupId) == 0) {
             throw new NoSuchElementException("Group with ID " + id + " does not exist.");
         }
-        Optional<Group> optionalGroup = groupRepository.findById(id);
-
-        if (optionalGroup.isPresent()) {
-            Group group = optionalGroup.get();
 
-            Iterator<Student> iterator = group.getStudents().iterator();
+        entityCacheService.evictGroup(groupId);
 
-            while (iterator.hasNext()) {
-                Student student = iterator.next();
-                iterator.remove();
-                student.setGroup(null);
-            }
-
-            groupRepository.deleteById(id);
-            boolean deleted = !groupRepository.existsById(id);
+        return true;
+    }
 
-            if (!deleted) {
-                throw new IllegalStateException("Failed to delete group with ID " + id + ".");
-            }
+    public boolean existsById(String id) {
+        return groupRepository.existsById(EntityIds.parse(id));
+    }
 
-            return true;
-        } else {
-            return false;
+    public KeysetPage<Group> getGroupsPage(String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0!");
         }
-    }
 
-    public boolean existsById(String id) {
-        return groupRepository.existsById(id);
+        List<Group> groups = cursor == null
+                ? groupRepository.findByOrderByIdAsc(Limit.of(pageSize + 1))
+                : groupRepository.findByIdGreaterThanOrderByIdAsc(EntityIds.parse(cursor), Limit.of(pageSize + 1));
+        return KeysetPage.of(groups, pageSize, group -> group.getId().toString());
     }
 
     public List<Group> getAllGroups() {
@@ -127,8 +100,9 @@ public class GroupService {
         return groups;
     }
 
+    @Transactional(readOnly = true)
     public Group getById(String id) {
-        Optional<Group> group = groupRepository.findById(id);
+        Optional<Group> group = groupRepository.findById(EntityIds.parse(id));
 
         if (group.isEmpty()) {
             throw new NoSuchElementException("There is no such group with ID: " + id);
@@ -138,16 +112,16 @@ public class GroupService {
     }
 
     public List<String> getAllIds() {
-        return groupRepository.findAll().stream().map(Group::getId).toList();
+        return groupRepository.findAllIds().stream().map(UUID::toString).toList();
     }
 
-    @Transactional
-    public List<Group> findAllGroupsWithLessOrEqualsStudentCount(int studentCount) {
+    @Transactional(readOnly = true)
+    public List<GroupStudentCount> findAllGroupsWithLessOrEqualsStudentCount(int studentCount) {
         if (studentCount < 0) {
             throw new IllegalArgumentException("Student count cannot be less than 0!");
         }
 
-        List<Group> result = groupRepository.findAll().stream().filter(group -> group.getStudents().size() <= studentCount).toList();
+        List<GroupStudentCount> result = groupRepository.findAllWithStudentCountLessThanOrEqual(studentCount);
 
         if (result.isEmpty()) {
             throw new NoSuchElementException("There are no such groups with less or equals student count: " + studentCount);
@@ -155,4 +129,23 @@ public class GroupService {
 
         return result;
     }
+
+    // the triggers should keep student_count exact, this catches anything that slipped past them
+    // (disabled triggers, manual fixes with session_replication_role = replica) and repairs it
+    @Transactional
+    @Scheduled(fixedDelayString = "${school.group-student-count.verify-interval:PT15M}",
+               initialDelayString = "${school.group-student-count.verify-interval:PT15M}")
+    public int repairStudentCountDrift() {
+        List<UUID> driftedIds = groupRepository.findIdsWithStudentCountDrift();
+
+        if (driftedIds.isEmpty()) {
+            return 0;
+        }
+
+        logger.warn("Student count drifted for {} groups, recounting: {}", driftedIds.size(), driftedIds);
+        // the recount subquery reads the statement snapshot and a row lock wait does not refresh it, so the rows are
+        // locked first: writers still in flight commit their trigger deltas before the recount statement starts
+        List<UUID> lockedIds = groupRepository.lockByIdIn(driftedIds);
+        return groupRepository.recountStudents(lockedIds);
+    }
 }
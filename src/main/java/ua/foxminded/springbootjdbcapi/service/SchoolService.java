@@ -1,110 +1,213 @@
 package ua.foxminded.springbootjdbcapi.service;
 
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import ua.foxminded.springbootjdbcapi.model.Course;
-import ua.foxminded.springbootjdbcapi.model.Student;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentResult;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentStatus;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.model.EntityIds;
+import ua.foxminded.springbootjdbcapi.repository.BulkRepository;
 import ua.foxminded.springbootjdbcapi.repository.CourseRepository;
+import ua.foxminded.springbootjdbcapi.repository.GroupRepository;
 import ua.foxminded.springbootjdbcapi.repository.StudentRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class SchoolService {
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
+    private final GroupRepository groupRepository;
+    private final BulkRepository bulkRepository;
+    private final EntityCacheService entityCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EnrollmentIndex enrollmentIndex;
 
     @Autowired
-    public SchoolService(StudentRepository studentRepository, CourseRepository courseRepository) {
+    public SchoolService(StudentRepository studentRepository, CourseRepository courseRepository,
+                         GroupRepository groupRepository, BulkRepository bulkRepository,
+                         EntityCacheService entityCacheService, ApplicationEventPublisher eventPublisher,
+                         EnrollmentIndex enrollmentIndex) {
         this.studentRepository = studentRepository;
         this.courseRepository = courseRepository;
+        this.groupRepository = groupRepository;
+        this.bulkRepository = bulkRepository;
+        this.entityCacheService = entityCacheService;
+        this.eventPublisher = eventPublisher;
+        this.enrollmentIndex = enrollmentIndex;
     }
 
     @Transactional
     public boolean addStudentToCourse(String studentId, String courseId) {
-        Optional<Student> studentOptional = studentRepository.findById(studentId);
-        if (studentOptional.isEmpty())
-            throw new NoSuchElementException("Student with ID " + studentId + " does not exist.");
+        Enrollment enrollment = new Enrollment(studentId, courseId);
+        if (courseRepository.enrollStudent(enrollment.studentId(), enrollment.courseId()) == 0) {
+            requireStudentAndCourse(enrollment, studentId, courseId);
+            throw new IllegalArgumentException("Student with ID " + studentId + " is already enrolled in course with ID " + courseId + ".");
+        }
+        entityCacheService.evictRoster(enrollment.courseId());
+        eventPublisher.publishEvent(EnrollmentChangedEvent.enrolled(List.of(enrollment)));
 
-        Optional<Course> courseOptional = courseRepository.findById(courseId);
-        if (courseOptional.isEmpty())
-            throw new NoSuchElementException("Course with ID " + courseId + " does not exist.");
+        return true;
+    }
 
-        if (studentEnrolledOnCourse(studentId, courseId)) {
-            throw new IllegalArgumentException("Student with ID " + studentId + " is already enrolled in course with ID " + courseId + ".");
+    @Transactional
+    public boolean removeStudentFromCourse(String studentId, String courseId) {
+        Enrollment enrollment = new Enrollment(studentId, courseId);
+        if (courseRepository.unenrollStudent(enrollment.studentId(), enrollment.courseId()) == 0) {
+            requireStudentAndCourse(enrollment, studentId, courseId);
+            throw new IllegalArgumentException("Student with ID " + studentId + " is not enrolled in course with ID " + courseId + ".");
         }
+        entityCacheService.evictRoster(enrollment.courseId());
+        eventPublisher.publishEvent(EnrollmentChangedEvent.unenrolled(List.of(enrollment)));
 
-        Course course = courseOptional.get();
-        Student student = studentOptional.get();
+        return true;
+    }
+
+    @Transactional
+    public int addEnrollments(Collection<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return 0;
+        }
+
+        // pairs that were already enrolled are skipped, so neither the caches nor the listeners hear about them
+        List<Enrollment> inserted = bulkRepository.insertNewEnrollments(enrollments);
+        if (inserted.isEmpty()) {
+            return 0;
+        }
 
-        course.getStudents().add(student);
-        student.getCourses().add(course);
+        entityCacheService.evictRosters(inserted.stream().map(Enrollment::courseId).toList());
+        eventPublisher.publishEvent(EnrollmentChangedEvent.enrolled(inserted));
 
-        studentRepository.flush();
-        courseRepository.flush();
+        return inserted.size();
+    }
 
-        if (!studentEnrolledOnCourse(studentId, courseId)) {
-            throw new IllegalStateException("Failed to enroll student with ID " + studentId + " in course with ID " + courseId + ".");
+    @Transactional
+    public EnrollmentResult enrollAll(Collection<Enrollment> enrollments) {
+        Set<UUID> studentIds = enrollments.stream().map(Enrollment::studentId).collect(Collectors.toSet());
+        Set<UUID> courseIds = enrollments.stream().map(Enrollment::courseId).collect(Collectors.toSet());
+
+        Set<UUID> existingStudentIds = bulkRepository.findExistingStudentIds(studentIds);
+        Set<UUID> existingCourseIds = bulkRepository.findExistingCourseIds(courseIds);
+        Set<Enrollment> existingEnrollments = bulkRepository.findEnrollments(existingStudentIds, existingCourseIds);
+
+        Map<Enrollment, EnrollmentStatus> statuses = new LinkedHashMap<>();
+        List<Enrollment> newEnrollments = new ArrayList<>();
+
+        for (Enrollment enrollment : enrollments) {
+            if (statuses.containsKey(enrollment)) {
+                continue;
+            }
+
+            EnrollmentStatus status;
+            if (!existingStudentIds.contains(enrollment.studentId())) {
+                status = EnrollmentStatus.STUDENT_NOT_FOUND;
+            } else if (!existingCourseIds.contains(enrollment.courseId())) {
+                status = EnrollmentStatus.COURSE_NOT_FOUND;
+            } else if (existingEnrollments.contains(enrollment)) {
+                status = EnrollmentStatus.ALREADY_ENROLLED;
+            } else {
+                status = EnrollmentStatus.ENROLLED;
+                newEnrollments.add(enrollment);
+            }
+            statuses.put(enrollment, status);
         }
 
-        return true;
+        addEnrollments(newEnrollments);
+
+        return new EnrollmentResult(statuses);
     }
 
     @Transactional
-    public boolean removeStudentFromCourse(String studentId, String courseId) {
-        Optional<Student> studentOptional = studentRepository.findById(studentId);
-        if (studentOptional.isEmpty())
-            throw new NoSuchElementException("Student with ID " + studentId + " does not exist.");
+    public EnrollmentResult enrollGroup(String groupId, Collection<String> courseIds) {
+        if (!groupRepository.existsById(EntityIds.parse(groupId))) {
+            throw new NoSuchElementException("Group with ID " + groupId + " does not exist.");
+        }
 
-        Optional<Course> courseOptional = courseRepository.findById(courseId);
-        if (courseOptional.isEmpty())
-            throw new NoSuchElementException("Course with ID " + courseId + " does not exist.");
+        List<UUID> parsedCourseIds = courseIds.stream().map(EntityIds::parse).toList();
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (UUID studentId : studentRepository.findIdsByGroupId(EntityIds.parse(groupId))) {
+            for (UUID courseId : parsedCourseIds) {
+                enrollments.add(new Enrollment(studentId, courseId));
+            }
+        }
 
-        if (!studentEnrolledOnCourse(studentId, courseId)) {
-            throw new IllegalArgumentException("Student with ID " + studentId + " is not enrolled in course with ID " + courseId + ".");
+        return enrollAll(enrollments);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean studentEnrolledOnCourse(String studentId, String courseId) {
+        Enrollment enrollment = new Enrollment(studentId, courseId);
+        boolean enrolled = readFromIndex()
+                ? enrollmentIndex.isEnrolled(enrollment.studentId(), enrollment.courseId())
+                : courseRepository.existsEnrollment(enrollment.studentId(), enrollment.courseId());
+        if (enrolled) {
+            return true;
         }
 
+        requireStudentAndCourse(enrollment, studentId, courseId);
+        return false;
+    }
 
-        Course course = courseOptional.get();
-        Student student = studentOptional.get();
+    public long countStudentsOnCourse(String courseId) {
+        UUID id = EntityIds.parse(courseId);
+        long count = readFromIndex()
+                ? enrollmentIndex.countStudents(id)
+                : courseRepository.countEnrollments(id);
 
-        course.getStudents().remove(student);
-        student.getCourses().remove(course);
+        if (count == 0 && !courseRepository.existsById(id)) {
+            throw new NoSuchElementException("Course with ID " + courseId + " does not exist.");
+        }
 
-        studentRepository.flush();
-        courseRepository.flush();
+        return count;
+    }
 
-        if (studentEnrolledOnCourse(studentId, courseId)) {
-            throw new IllegalStateException("Failed to delete student with ID " + studentId + " from course with ID " + courseId + ".");
+    public List<String> findStudentIdsOnAllCourses(Collection<String> courseIds) {
+        Set<UUID> distinctCourseIds = courseIds.stream().map(EntityIds::parse).collect(Collectors.toSet());
+        if (distinctCourseIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one course ID is required!");
         }
 
-        return true;
+        List<UUID> studentIds = readFromIndex()
+                ? enrollmentIndex.findStudentsInAllCourses(distinctCourseIds)
+                : courseRepository.findStudentIdsEnrolledInAll(distinctCourseIds, distinctCourseIds.size());
+        return studentIds.stream().map(UUID::toString).toList();
     }
 
+    // the index only sees committed enrollments, so a read-write transaction has to read its own writes from the table
+    private static boolean readFromIndex() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
 
-    public boolean studentEnrolledOnCourse(String studentId, String courseId) {
-        Optional<Student> student = studentRepository.findById(studentId);
-        if (student.isEmpty())
+    // the messages quote the ids as given, since a non-UUID key is looked up by its md5 mapping
+    private void requireStudentAndCourse(Enrollment enrollment, String studentId, String courseId) {
+        if (!studentRepository.existsById(enrollment.studentId()))
             throw new NoSuchElementException("Student with ID " + studentId + " does not exist.");
 
-        Optional<Course> course = courseRepository.findById(courseId);
-        if (course.isEmpty())
+        if (!courseRepository.existsById(enrollment.courseId()))
             throw new NoSuchElementException("Course with ID " + courseId + " does not exist.");
-
-
-        return course.get().getStudents().contains(student.get());
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.STUDENTS_CACHE, CacheConfig.COURSE_ROSTERS_CACHE}, allEntries = true)
     public void deleteAll() {
-        studentRepository.deleteAll();
-        courseRepository.deleteAll();
-
-        if (!studentRepository.findAll().isEmpty() || !courseRepository.findAll().isEmpty()) {
-            throw new IllegalStateException("Students and Courses were not unpaired");
-        }
+        courseRepository.truncateCoursesAndStudents();
+        eventPublisher.publishEvent(new EnrollmentsResetEvent());
     }
 
 
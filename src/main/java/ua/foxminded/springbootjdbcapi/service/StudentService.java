@@ -1,11 +1,21 @@
 package ua.foxminded.springbootjdbcapi.service;
 
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import ua.foxminded.springbootjdbcapi.model.Group;
+import org.springframework.transaction.annotation.Transactional;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
 import ua.foxminded.springbootjdbcapi.model.Student;
-import ua.foxminded.springbootjdbcapi.model.Course;
+import ua.foxminded.springbootjdbcapi.model.StudentDetails;
+import ua.foxminded.springbootjdbcapi.model.KeysetPage;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.model.EntityIds;
 import ua.foxminded.springbootjdbcapi.repository.CourseRepository;
 import ua.foxminded.springbootjdbcapi.repository.GroupRepository;
 import ua.foxminded.springbootjdbcapi.repository.StudentRepository;
@@ -13,115 +23,129 @@ import ua.foxminded.springbootjdbcapi.repository.StudentRepository;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class StudentService {
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
     private final GroupRepository groupRepository;
+    private final EntityCacheService entityCacheService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public StudentService(StudentRepository studentRepository, CourseRepository courseRepository, GroupRepository groupRepository) {
+    public StudentService(StudentRepository studentRepository, CourseRepository courseRepository, GroupRepository groupRepository,
+                          EntityCacheService entityCacheService, ApplicationEventPublisher eventPublisher) {
         this.studentRepository = studentRepository;
         this.courseRepository = courseRepository;
         this.groupRepository = groupRepository;
+        this.entityCacheService = entityCacheService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public boolean saveStudentWithOwnId(Student student){
-        if(getAllIds().contains(student.getId())){
+        UUID groupId = student.getGroup() == null ? null : student.getGroup().getId();
+
+        int inserted = studentRepository.insertIfAbsent(student.getId(), groupId, student.getFirstName(), student.getLastName());
+        if (inserted == 0) {
             throw new IllegalStateException("This id is already used. Create another one!");
         }
 
-        return save(student);
+        return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS_CACHE, key = "#student.id")
     public boolean save(Student student) {
-        studentRepository.save(student);
-
-        boolean exists = studentRepository.existsById(student.getId());
-        if (!exists) {
-            throw new IllegalStateException("Student was not created!");
+        if (student.getGroup() != null) {
+            student.setGroup(groupRepository.getReferenceById(student.getGroup().getId()));
         }
 
+        studentRepository.save(student);
+
         return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS_CACHE, allEntries = true)
     public boolean deleteAll() {
-        List<Student> students = studentRepository.findAll();
-        List<Group> groups = groupRepository.findAll();
-        List<Course> courses = courseRepository.findAll();
+        courseRepository.deleteAllEnrollments();
+        entityCacheService.evictAllRosters();
+        eventPublisher.publishEvent(new EnrollmentsResetEvent());
 
-        if (students.isEmpty()) {
+        if (studentRepository.deleteAllStudents() == 0) {
             throw new NoSuchElementException("No students to delete");
         }
 
-        for (Group group : groups) {
-            group.getStudents().clear();
-            groupRepository.save(group);
-        }
-
-        for (Student student : students) {
-            student.setGroup(null);
-            studentRepository.save(student);
-        }
-
-        for(Course course: courses){
-            course.setStudents(null);
-            courseRepository.save(course);
-        }
-
-        studentRepository.deleteAll();
-
-        boolean allDeleted = studentRepository.findAll().isEmpty();
-        if (!allDeleted) {
-            throw new IllegalStateException("Students were not deleted");
-        }
-
         return true;
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS_CACHE, key = "#student.id"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_ROSTERS_CACHE, allEntries = true)
+    })
     public boolean update(Student student) {
-        if (!studentRepository.existsById(student.getId())) {
+        if (studentRepository.updateById(student.getId(), student.getGroup(), student.getFirstName(), student.getLastName()) == 0) {
             throw new NoSuchElementException("Student with ID " + student.getId() + " does not exist.");
         }
 
-        studentRepository.save(student);
+        return true;
+    }
 
-        boolean updated = studentRepository.existsById(student.getId());
-        if (!updated) {
-            throw new IllegalStateException("Failed to update student with ID " + student.getId() + ".");
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS_CACHE, key = "#student.id"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_ROSTERS_CACHE, allEntries = true)
+    })
+    public boolean patch(Student student) {
+        UUID groupId = student.getGroup() == null ? null : student.getGroup().getId();
+
+        if (studentRepository.patchById(student.getId(), groupId, student.getFirstName(), student.getLastName()) == 0) {
+            throw new NoSuchElementException("Student with ID " + student.getId() + " does not exist.");
         }
 
         return true;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS_CACHE, key = CacheConfig.ID_KEY)
     public boolean deleteById(String id) {
-        Optional<Student> optionalStudent = studentRepository.findById(id);
-
-        if (optionalStudent.isPresent()) {
-            Student student = optionalStudent.get();
+        UUID studentId = EntityIds.parse(id);
+        // the enrollments go with the row through ON DELETE CASCADE, only their course ids are needed for the caches;
+        // the row lock waits out enrollments in flight and blocks new ones, so the ids read next are the ones cascaded
+        if (studentRepository.lockById(studentId).isEmpty()) {
+            return false;
+        }
 
-            for (Course course : student.getCourses()) {
-                course.getStudents().remove(student);
-            }
+        List<UUID> courseIds = courseRepository.findIdsByStudentId(studentId);
+        studentRepository.deleteStudentById(studentId);
 
-            studentRepository.deleteById(id);
+        entityCacheService.evictRosters(courseIds);
+        eventPublisher.publishEvent(EnrollmentChangedEvent.unenrolled(courseIds.stream()
+                .map(courseId -> new Enrollment(studentId, courseId))
+                .toList()));
 
-            return !studentRepository.existsById(id);
-        } else {
-            return false;
-        }
+        return true;
     }
 
     public boolean existsById(String id) {
-        return studentRepository.existsById(id);
+        return studentRepository.existsById(EntityIds.parse(id));
+    }
+
+    public KeysetPage<Student> getStudentsPage(String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0!");
+        }
+
+        List<Student> students = cursor == null
+                ? studentRepository.findByOrderByIdAsc(Limit.of(pageSize + 1))
+                : studentRepository.findByIdGreaterThanOrderByIdAsc(EntityIds.parse(cursor), Limit.of(pageSize + 1));
+        return KeysetPage.of(students, pageSize, student -> student.getId().toString());
     }
 
+    @Transactional(readOnly = true)
     public List<Student> getAllStudents() {
         List<Student> students = studentRepository.findAll();
         if (students.isEmpty()) {
@@ -130,28 +154,28 @@ public class StudentService {
         return students;
     }
 
-    public Student getById(String id) {
-        Optional<Student> student = studentRepository.findById(id);
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.STUDENTS_CACHE, key = CacheConfig.ID_KEY, sync = true)
+    public StudentDetails getById(String id) {
+        Optional<Student> student = studentRepository.findById(EntityIds.parse(id));
         if (student.isEmpty()) {
             throw new NoSuchElementException("There is no such student with ID: " + id);
         }
-        return student.get();
+        return StudentDetails.of(student.get());
     }
 
     public List<String> getAllIds(){
-        return studentRepository.findAll().stream().map(Student::getId).toList();
+        return studentRepository.findAllIds().stream().map(UUID::toString).toList();
     }
 
-    @Transactional
-    public List<Student> findAllStudentsByCourseName(String courseName) {
-        List<Student> students = studentRepository.findAll().stream()
-                .filter(student -> student.getCourses()
-                        .stream().map(Course::getName).toList()
-                        .contains(courseName))
-                .toList();
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.COURSE_ROSTERS_CACHE, key = "#courseName", sync = true)
+    public List<StudentDetails> findAllStudentsByCourseName(String courseName) {
+        List<UUID> courseIds = courseRepository.findIdsByName(courseName);
+        List<StudentDetails> students = courseIds.isEmpty() ? List.of() : studentRepository.findDetailsByCourseIdIn(courseIds);
 
         if (students.isEmpty()) throw new NoSuchElementException("No students were found!");
 
-        return students;
+        return List.copyOf(students);
     }
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+-- step 5 of the VARCHAR -> uuid key migration: fill the statistics views V10 recreated empty; this runs after the
+-- swap committed, so the tables are only read here and writes continue meanwhile
+REFRESH MATERIALIZED VIEW course_enrollment_stats;
+REFRESH MATERIALIZED VIEW group_course_enrollment_stats;
+REFRESH MATERIALIZED VIEW enrollment_summary;
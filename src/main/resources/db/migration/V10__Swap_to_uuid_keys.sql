@@ -0,0 +1,122 @@
+-- step 4 of the VARCHAR -> uuid key migration: swap the uuid columns in under one short lock;
+-- every step that scales with table size (backfill, index builds) already ran online in V7-V9
+LOCK TABLE groups, courses, students, student_courses IN ACCESS EXCLUSIVE MODE;
+
+-- no fix-up pass over the rows: the checks validated in V9 already prove every row carries its uuid
+DROP MATERIALIZED VIEW IF EXISTS course_enrollment_stats, group_course_enrollment_stats, enrollment_summary;
+
+DROP TRIGGER IF EXISTS groups_sync_uuid_keys ON groups;
+DROP TRIGGER IF EXISTS courses_sync_uuid_keys ON courses;
+DROP TRIGGER IF EXISTS students_sync_uuid_keys ON students;
+DROP TRIGGER IF EXISTS student_courses_sync_uuid_keys ON student_courses;
+DROP FUNCTION IF EXISTS sync_uuid_keys();
+
+-- CASCADE takes the old primary keys, foreign keys and indexes on these columns with them
+ALTER TABLE student_courses DROP COLUMN student_id CASCADE, DROP COLUMN course_id CASCADE;
+ALTER TABLE students DROP COLUMN student_id CASCADE, DROP COLUMN group_id CASCADE;
+ALTER TABLE groups DROP COLUMN group_id CASCADE;
+ALTER TABLE courses DROP COLUMN course_id CASCADE;
+
+ALTER TABLE groups RENAME COLUMN group_uuid TO group_id;
+ALTER TABLE courses RENAME COLUMN course_uuid TO course_id;
+ALTER TABLE students RENAME COLUMN student_uuid TO student_id;
+ALTER TABLE students RENAME COLUMN group_uuid TO group_id;
+ALTER TABLE student_courses RENAME COLUMN student_uuid TO student_id;
+ALTER TABLE student_courses RENAME COLUMN course_uuid TO course_id;
+
+-- the validated checks let SET NOT NULL skip its table scan, after that they are redundant
+ALTER TABLE groups ALTER COLUMN group_id SET NOT NULL, DROP CONSTRAINT groups_group_uuid_not_null;
+ALTER TABLE courses ALTER COLUMN course_id SET NOT NULL, DROP CONSTRAINT courses_course_uuid_not_null;
+ALTER TABLE students ALTER COLUMN student_id SET NOT NULL, DROP CONSTRAINT students_student_uuid_not_null;
+ALTER TABLE student_courses
+    ALTER COLUMN student_id SET NOT NULL,
+    ALTER COLUMN course_id SET NOT NULL,
+    DROP CONSTRAINT student_courses_student_uuid_not_null,
+    DROP CONSTRAINT student_courses_course_uuid_not_null;
+
+ALTER TABLE groups ADD CONSTRAINT groups_pkey PRIMARY KEY USING INDEX uq_groups_group_uuid;
+ALTER TABLE courses ADD CONSTRAINT courses_pkey PRIMARY KEY USING INDEX uq_courses_course_uuid;
+ALTER TABLE students ADD CONSTRAINT students_pkey PRIMARY KEY USING INDEX uq_students_student_uuid;
+ALTER TABLE student_courses ADD CONSTRAINT student_courses_pkey PRIMARY KEY USING INDEX uq_student_courses_uuids;
+
+-- NOT VALID keeps the foreign keys a catalog change under the lock, the rows were consistent under the old keys;
+-- V12 swaps in their cascading versions and V13 validates those without blocking writes
+ALTER TABLE students ADD CONSTRAINT students_group_id_fkey FOREIGN KEY (group_id) REFERENCES groups (group_id) NOT VALID;
+ALTER TABLE student_courses ADD CONSTRAINT student_courses_student_id_fkey FOREIGN KEY (student_id) REFERENCES students (student_id) NOT VALID;
+ALTER TABLE student_courses ADD CONSTRAINT student_courses_course_id_fkey FOREIGN KEY (course_id) REFERENCES courses (course_id) NOT VALID;
+
+ALTER INDEX idx_student_courses_course_uuid RENAME TO idx_student_courses_course_id;
+ALTER INDEX idx_groups_student_count_uuid RENAME TO idx_groups_student_count;
+
+DROP FUNCTION IF EXISTS text_to_uuid(TEXT);
+
+CREATE OR REPLACE FUNCTION sync_group_student_count() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    changed_group_ids UUID[];
+    deltas            BIGINT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, COUNT(*) AS delta FROM new_rows WHERE group_id IS NOT NULL GROUP BY group_id) changes;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, -COUNT(*) AS delta FROM old_rows WHERE group_id IS NOT NULL GROUP BY group_id) changes;
+    ELSE
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, SUM(delta) AS delta
+              FROM (SELECT group_id, 1 AS delta FROM new_rows
+                    UNION ALL
+                    SELECT group_id, -1 AS delta FROM old_rows) moves
+              WHERE group_id IS NOT NULL
+              GROUP BY group_id
+              HAVING SUM(delta) <> 0) changes;
+    END IF;
+
+    IF changed_group_ids IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    PERFORM 1 FROM groups WHERE group_id = ANY (changed_group_ids) ORDER BY group_id FOR UPDATE;
+
+    UPDATE groups g
+    SET student_count = g.student_count + changes.delta
+    FROM unnest(changed_group_ids, deltas) AS changes(group_id, delta)
+    WHERE g.group_id = changes.group_id;
+
+    RETURN NULL;
+END
+$$;
+
+-- the views are created empty so nothing scans the tables under the lock, V10_1 fills them once it is released
+CREATE MATERIALIZED VIEW IF NOT EXISTS course_enrollment_stats AS
+SELECT c.course_id, c.course_name, COUNT(sc.student_id) AS student_count
+FROM courses c
+         LEFT JOIN student_courses sc ON sc.course_id = c.course_id
+GROUP BY c.course_id, c.course_name
+WITH NO DATA;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_course_enrollment_stats ON course_enrollment_stats (course_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS group_course_enrollment_stats AS
+SELECT s.group_id, sc.course_id, COUNT(*) AS student_count
+FROM student_courses sc
+         JOIN students s ON s.student_id = sc.student_id
+WHERE s.group_id IS NOT NULL
+GROUP BY s.group_id, sc.course_id
+WITH NO DATA;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_group_course_enrollment_stats ON group_course_enrollment_stats (group_id, course_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS enrollment_summary AS
+SELECT 1                                      AS summary_id,
+       (SELECT COUNT(*) FROM students)        AS student_count,
+       (SELECT COUNT(*) FROM student_courses) AS enrollment_count,
+       now()                                  AS refreshed_at
+WITH NO DATA;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_enrollment_summary ON enrollment_summary (summary_id);
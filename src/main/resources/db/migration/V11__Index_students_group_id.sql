@@ -0,0 +1,2 @@
+-- ON DELETE SET NULL (V12) looks students up by group_id, without this index every group delete scans students
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_students_group_id ON students (group_id);
@@ -0,0 +1,14 @@
+-- deleting a student, course or group is one statement, the database removes enrollments and detaches students;
+-- NOT VALID keeps the swap to a catalog change, existing rows already satisfy the old constraints (validated in V13)
+ALTER TABLE student_courses
+    DROP CONSTRAINT student_courses_student_id_fkey,
+    ADD CONSTRAINT student_courses_student_id_fkey FOREIGN KEY (student_id)
+        REFERENCES students (student_id) ON DELETE CASCADE NOT VALID,
+    DROP CONSTRAINT student_courses_course_id_fkey,
+    ADD CONSTRAINT student_courses_course_id_fkey FOREIGN KEY (course_id)
+        REFERENCES courses (course_id) ON DELETE CASCADE NOT VALID;
+
+ALTER TABLE students
+    DROP CONSTRAINT students_group_id_fkey,
+    ADD CONSTRAINT students_group_id_fkey FOREIGN KEY (group_id)
+        REFERENCES groups (group_id) ON DELETE SET NULL NOT VALID;
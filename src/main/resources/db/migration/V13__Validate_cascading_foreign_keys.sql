@@ -0,0 +1,4 @@
+-- runs in its own transaction, validation only takes a SHARE UPDATE EXCLUSIVE lock so writes continue meanwhile
+ALTER TABLE student_courses VALIDATE CONSTRAINT student_courses_student_id_fkey;
+ALTER TABLE student_courses VALIDATE CONSTRAINT student_courses_course_id_fkey;
+ALTER TABLE students VALIDATE CONSTRAINT students_group_id_fkey;
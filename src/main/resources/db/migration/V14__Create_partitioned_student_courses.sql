@@ -0,0 +1,82 @@
+-- step 1 of moving enrollments to a hash-partitioned table: create it next to student_courses and mirror every
+-- write into it, so the copy (V15) can run in small batches while the application keeps enrolling students
+
+-- partitioned by course so a roster (course_id = ?) is pruned to one partition and its own, smaller index;
+-- the primary key has to contain the partition key, (student_id, course_id) already does
+CREATE TABLE IF NOT EXISTS student_courses_partitioned
+(
+    student_id UUID NOT NULL,
+    course_id  UUID NOT NULL,
+    CONSTRAINT student_courses_partitioned_pkey PRIMARY KEY (student_id, course_id),
+    CONSTRAINT student_courses_student_id_fkey FOREIGN KEY (student_id)
+        REFERENCES students (student_id) ON DELETE CASCADE,
+    CONSTRAINT student_courses_course_id_fkey FOREIGN KEY (course_id)
+        REFERENCES courses (course_id) ON DELETE CASCADE
+) PARTITION BY HASH (course_id);
+
+-- spring.flyway.placeholders.enrollment_partitions; hash partitions can't be split later, so size it for the
+-- expected volume up front (a power of two keeps the option of rehashing by attaching a wider modulus)
+DO
+$$
+BEGIN
+    FOR remainder IN 0..${enrollment_partitions} - 1
+        LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS student_courses_p%s PARTITION OF student_courses_partitioned '
+                               'FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                           remainder, ${enrollment_partitions}, remainder);
+        END LOOP;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_student_courses_partitioned_course_id
+    ON student_courses_partitioned (course_id, student_id);
+
+-- statement-level like the group counters, so a batched enrollment is mirrored with one insert
+CREATE OR REPLACE FUNCTION mirror_student_courses() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        TRUNCATE student_courses_partitioned;
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        DELETE FROM student_courses_partitioned p
+        USING old_rows o
+        WHERE p.student_id = o.student_id
+          AND p.course_id = o.course_id;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO student_courses_partitioned (student_id, course_id)
+        SELECT student_id, course_id FROM new_rows
+        ON CONFLICT DO NOTHING;
+    END IF;
+
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS student_courses_mirror_insert ON student_courses;
+CREATE TRIGGER student_courses_mirror_insert
+    AFTER INSERT ON student_courses
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION mirror_student_courses();
+
+DROP TRIGGER IF EXISTS student_courses_mirror_update ON student_courses;
+CREATE TRIGGER student_courses_mirror_update
+    AFTER UPDATE ON student_courses
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION mirror_student_courses();
+
+DROP TRIGGER IF EXISTS student_courses_mirror_delete ON student_courses;
+CREATE TRIGGER student_courses_mirror_delete
+    AFTER DELETE ON student_courses
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION mirror_student_courses();
+
+DROP TRIGGER IF EXISTS student_courses_mirror_truncate ON student_courses;
+CREATE TRIGGER student_courses_mirror_truncate
+    AFTER TRUNCATE ON student_courses
+    FOR EACH STATEMENT EXECUTE FUNCTION mirror_student_courses();
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_courses_course_name ON courses (course_name);
+
+CREATE INDEX IF NOT EXISTS idx_student_courses_course_id ON student_courses (course_id, student_id);
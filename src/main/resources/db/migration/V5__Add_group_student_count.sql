@@ -0,0 +1,82 @@
+ALTER TABLE groups ADD COLUMN IF NOT EXISTS student_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE groups g
+SET student_count = (SELECT COUNT(*) FROM students s WHERE s.group_id = g.group_id);
+
+CREATE INDEX IF NOT EXISTS idx_groups_student_count ON groups (student_count, group_id);
+
+-- statement-level so a batched insert of thousands of students touches each group once
+CREATE OR REPLACE FUNCTION sync_group_student_count() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    changed_group_ids VARCHAR(255)[];
+    deltas            BIGINT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, COUNT(*) AS delta FROM new_rows WHERE group_id IS NOT NULL GROUP BY group_id) changes;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, -COUNT(*) AS delta FROM old_rows WHERE group_id IS NOT NULL GROUP BY group_id) changes;
+    ELSE
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, SUM(delta) AS delta
+              FROM (SELECT group_id, 1 AS delta FROM new_rows
+                    UNION ALL
+                    SELECT group_id, -1 AS delta FROM old_rows) moves
+              WHERE group_id IS NOT NULL
+              GROUP BY group_id
+              HAVING SUM(delta) <> 0) changes;
+    END IF;
+
+    IF changed_group_ids IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    -- lock in key order so two statements moving students between the same groups cannot deadlock
+    PERFORM 1 FROM groups WHERE group_id = ANY (changed_group_ids) ORDER BY group_id FOR UPDATE;
+
+    UPDATE groups g
+    SET student_count = g.student_count + changes.delta
+    FROM unnest(changed_group_ids, deltas) AS changes(group_id, delta)
+    WHERE g.group_id = changes.group_id;
+
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION reset_group_student_count() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    UPDATE groups SET student_count = 0 WHERE student_count <> 0;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS students_insert_group_count ON students;
+CREATE TRIGGER students_insert_group_count
+    AFTER INSERT ON students
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_group_student_count();
+
+DROP TRIGGER IF EXISTS students_update_group_count ON students;
+CREATE TRIGGER students_update_group_count
+    AFTER UPDATE ON students
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_group_student_count();
+
+DROP TRIGGER IF EXISTS students_delete_group_count ON students;
+CREATE TRIGGER students_delete_group_count
+    AFTER DELETE ON students
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_group_student_count();
+
+DROP TRIGGER IF EXISTS students_truncate_group_count ON students;
+CREATE TRIGGER students_truncate_group_count
+    AFTER TRUNCATE ON students
+    FOR EACH STATEMENT EXECUTE FUNCTION reset_group_student_count();
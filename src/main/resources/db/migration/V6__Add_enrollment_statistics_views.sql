@@ -0,0 +1,25 @@
+CREATE MATERIALIZED VIEW IF NOT EXISTS course_enrollment_stats AS
+SELECT c.course_id, c.course_name, COUNT(sc.student_id) AS student_count
+FROM courses c
+         LEFT JOIN student_courses sc ON sc.course_id = c.course_id
+GROUP BY c.course_id, c.course_name;
+
+-- REFRESH ... CONCURRENTLY needs a unique index to diff the old and new contents
+CREATE UNIQUE INDEX IF NOT EXISTS uq_course_enrollment_stats ON course_enrollment_stats (course_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS group_course_enrollment_stats AS
+SELECT s.group_id, sc.course_id, COUNT(*) AS student_count
+FROM student_courses sc
+         JOIN students s ON s.student_id = sc.student_id
+WHERE s.group_id IS NOT NULL
+GROUP BY s.group_id, sc.course_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_group_course_enrollment_stats ON group_course_enrollment_stats (group_id, course_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS enrollment_summary AS
+SELECT 1                                      AS summary_id,
+       (SELECT COUNT(*) FROM students)        AS student_count,
+       (SELECT COUNT(*) FROM student_courses) AS enrollment_count,
+       now()                                  AS refreshed_at;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_enrollment_summary ON enrollment_summary (summary_id);
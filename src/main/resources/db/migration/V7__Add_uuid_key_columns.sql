@@ -0,0 +1,67 @@
+-- step 1 of the VARCHAR -> uuid key migration: add nullable shadow columns (a catalog-only change) and keep them
+-- in sync on every write, so the backfill (V8) and index builds (V9) can run while the application is live
+
+-- keys that were never UUIDs map to md5(key) so they stay stable and addressable by their old text (EntityIds.parse)
+CREATE OR REPLACE FUNCTION text_to_uuid(key TEXT) RETURNS UUID
+    LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE AS
+$$
+SELECT CASE
+           WHEN key ~ '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$' THEN key::uuid
+           ELSE md5(key)::uuid
+           END
+$$;
+
+ALTER TABLE groups ADD COLUMN IF NOT EXISTS group_uuid UUID;
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS course_uuid UUID;
+ALTER TABLE students ADD COLUMN IF NOT EXISTS student_uuid UUID;
+ALTER TABLE students ADD COLUMN IF NOT EXISTS group_uuid UUID;
+ALTER TABLE student_courses ADD COLUMN IF NOT EXISTS student_uuid UUID;
+ALTER TABLE student_courses ADD COLUMN IF NOT EXISTS course_uuid UUID;
+
+-- NOT VALID only checks new writes, which the triggers below fill; once V9 validates them against the backfilled
+-- rows, V10 can mark the renamed columns NOT NULL without scanning the tables under its lock
+ALTER TABLE groups ADD CONSTRAINT groups_group_uuid_not_null CHECK (group_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE courses ADD CONSTRAINT courses_course_uuid_not_null CHECK (course_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE students ADD CONSTRAINT students_student_uuid_not_null CHECK (student_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE students ADD CONSTRAINT students_group_uuid_not_null CHECK (group_id IS NULL OR group_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE student_courses ADD CONSTRAINT student_courses_student_uuid_not_null CHECK (student_uuid IS NOT NULL) NOT VALID;
+ALTER TABLE student_courses ADD CONSTRAINT student_courses_course_uuid_not_null CHECK (course_uuid IS NOT NULL) NOT VALID;
+
+CREATE OR REPLACE FUNCTION sync_uuid_keys() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_TABLE_NAME = 'groups' THEN
+        NEW.group_uuid := text_to_uuid(NEW.group_id);
+    ELSIF TG_TABLE_NAME = 'courses' THEN
+        NEW.course_uuid := text_to_uuid(NEW.course_id);
+    ELSIF TG_TABLE_NAME = 'students' THEN
+        NEW.student_uuid := text_to_uuid(NEW.student_id);
+        NEW.group_uuid := text_to_uuid(NEW.group_id);
+    ELSE
+        NEW.student_uuid := text_to_uuid(NEW.student_id);
+        NEW.course_uuid := text_to_uuid(NEW.course_id);
+    END IF;
+    RETURN NEW;
+END
+$$;
+
+DROP TRIGGER IF EXISTS groups_sync_uuid_keys ON groups;
+CREATE TRIGGER groups_sync_uuid_keys
+    BEFORE INSERT OR UPDATE ON groups
+    FOR EACH ROW EXECUTE FUNCTION sync_uuid_keys();
+
+DROP TRIGGER IF EXISTS courses_sync_uuid_keys ON courses;
+CREATE TRIGGER courses_sync_uuid_keys
+    BEFORE INSERT OR UPDATE ON courses
+    FOR EACH ROW EXECUTE FUNCTION sync_uuid_keys();
+
+DROP TRIGGER IF EXISTS students_sync_uuid_keys ON students;
+CREATE TRIGGER students_sync_uuid_keys
+    BEFORE INSERT OR UPDATE ON students
+    FOR EACH ROW EXECUTE FUNCTION sync_uuid_keys();
+
+DROP TRIGGER IF EXISTS student_courses_sync_uuid_keys ON student_courses;
+CREATE TRIGGER student_courses_sync_uuid_keys
+    BEFORE INSERT OR UPDATE ON student_courses
+    FOR EACH ROW EXECUTE FUNCTION sync_uuid_keys();
@@ -0,0 +1,39 @@
+-- step 3 of the VARCHAR -> uuid key migration: build the future key indexes and prove the backfill complete
+-- without blocking writes; Flyway runs this mixed script outside a transaction (spring.flyway.mixed), so each
+-- statement commits on its own
+
+-- a failed concurrent build leaves an INVALID index behind that IF NOT EXISTS would then keep, so a rerun drops it
+-- first; DO-style plpgsql cannot run the CONCURRENTLY builds, so only the drop lives in this session-local helper
+CREATE FUNCTION pg_temp.drop_invalid_index(index_name text) RETURNS void AS $$
+BEGIN
+    IF EXISTS (SELECT 1
+               FROM pg_index i
+               JOIN pg_class c ON c.oid = i.indexrelid
+               WHERE c.relname = index_name
+                 AND c.relnamespace = current_schema()::regnamespace
+                 AND NOT i.indisvalid) THEN
+        EXECUTE format('DROP INDEX %I', index_name);
+    END IF;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT pg_temp.drop_invalid_index('uq_groups_group_uuid');
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_groups_group_uuid ON groups (group_uuid);
+SELECT pg_temp.drop_invalid_index('uq_courses_course_uuid');
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_courses_course_uuid ON courses (course_uuid);
+SELECT pg_temp.drop_invalid_index('uq_students_student_uuid');
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_students_student_uuid ON students (student_uuid);
+SELECT pg_temp.drop_invalid_index('uq_student_courses_uuids');
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_student_courses_uuids ON student_courses (student_uuid, course_uuid);
+SELECT pg_temp.drop_invalid_index('idx_student_courses_course_uuid');
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_student_courses_course_uuid ON student_courses (course_uuid, student_uuid);
+SELECT pg_temp.drop_invalid_index('idx_groups_student_count_uuid');
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_groups_student_count_uuid ON groups (student_count, group_uuid);
+
+-- validation scans under SHARE UPDATE EXCLUSIVE, which lets reads and writes continue
+ALTER TABLE groups VALIDATE CONSTRAINT groups_group_uuid_not_null;
+ALTER TABLE courses VALIDATE CONSTRAINT courses_course_uuid_not_null;
+ALTER TABLE students VALIDATE CONSTRAINT students_student_uuid_not_null;
+ALTER TABLE students VALIDATE CONSTRAINT students_group_uuid_not_null;
+ALTER TABLE student_courses VALIDATE CONSTRAINT student_courses_student_uuid_not_null;
+ALTER TABLE student_courses VALIDATE CONSTRAINT student_courses_course_uuid_not_null;
@@ -0,0 +1,108 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class PartitionedStudentCoursesMigrationTest {
+    // 12 000 enrollments, so V15 copies them in more than one batch
+    private static final int STUDENTS = 6000;
+    private static final String ENROLLMENTS_DIGEST =
+            "SELECT COUNT(*) || ':' || md5(string_agg(student_id || '/' || course_id, ',' ORDER BY student_id, course_id)) " +
+            "FROM student_courses";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test");
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(postgresContainer.getJdbcUrl(), postgresContainer.getUsername(), postgresContainer.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        flyway("latest").clean();
+        flyway("13").migrate();
+        seed();
+    }
+
+    @Test
+    void migrate_GivenEnrollmentsBeforeV14_WhenMigratedToLatest_ThenStudentCoursesIsPartitionedWithEveryRow() {
+        // Given
+        String before = jdbcTemplate.queryForObject(ENROLLMENTS_DIGEST, String.class);
+
+        // When
+        flyway("latest").migrate();
+
+        // Then
+        assertEquals(before, jdbcTemplate.queryForObject(ENROLLMENTS_DIGEST, String.class));
+        assertEquals("p", jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = 'student_courses'", String.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_inherits WHERE inhparent = 'student_courses'::regclass", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_class WHERE relname LIKE '%\\_partitioned'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_proc WHERE proname = 'mirror_student_courses'", Integer.class));
+        assertEquals(2L * STUDENTS, jdbcTemplate.queryForObject("SELECT enrollment_count FROM enrollment_summary", Long.class));
+        assertEquals(2L * STUDENTS, jdbcTemplate.queryForObject("SELECT SUM(student_count) FROM course_enrollment_stats", Long.class));
+    }
+
+    @Test
+    void migrate_GivenWritesBetweenV14AndV15_WhenMigratedToLatest_ThenMirroredChangesAreKept() {
+        // Given
+        flyway("14").migrate();
+        jdbcTemplate.update("INSERT INTO student_courses (student_id, course_id) VALUES (md5('student-1')::uuid, md5('course-4')::uuid)");
+        jdbcTemplate.update("DELETE FROM student_courses WHERE student_id = md5('student-2')::uuid");
+        jdbcTemplate.update("UPDATE student_courses SET course_id = md5('course-7')::uuid " +
+                            "WHERE student_id = md5('student-3')::uuid AND course_id = md5('course-4')::uuid");
+        String before = jdbcTemplate.queryForObject(ENROLLMENTS_DIGEST, String.class);
+
+        // When
+        flyway("latest").migrate();
+
+        // Then
+        assertEquals(before, jdbcTemplate.queryForObject(ENROLLMENTS_DIGEST, String.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_courses " +
+                "WHERE student_id = md5('student-1')::uuid AND course_id = md5('course-4')::uuid", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_courses WHERE student_id = md5('student-2')::uuid", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_courses " +
+                "WHERE student_id = md5('student-3')::uuid AND course_id = md5('course-7')::uuid", Integer.class));
+    }
+
+    // the same settings the application migrates with, see application.properties
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .placeholders(Map.of("enrollment_partitions", "4"))
+                .mixed(true)
+                .cleanDisabled(false)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .target(target)
+                .load();
+    }
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO groups (group_id, group_name) " +
+                            "SELECT md5('group-' || n)::uuid, 'Group ' || n FROM generate_series(1, 2) n");
+        jdbcTemplate.update("INSERT INTO courses (course_id, course_name) " +
+                            "SELECT md5('course-' || n)::uuid, 'Course ' || n FROM generate_series(1, 8) n");
+        jdbcTemplate.update("INSERT INTO students (student_id, group_id, first_name, last_name) " +
+                            "SELECT md5('student-' || n)::uuid, md5('group-' || (n % 2 + 1))::uuid, 'First', 'Last' " +
+                            "FROM generate_series(1, ?) n", STUDENTS);
+        jdbcTemplate.update("INSERT INTO student_courses (student_id, course_id) " +
+                            "SELECT md5('student-' || n)::uuid, md5('course-' || ((n + k * 4) % 8 + 1))::uuid " +
+                            "FROM generate_series(1, ?) n, generate_series(0, 1) k", STUDENTS);
+    }
+}
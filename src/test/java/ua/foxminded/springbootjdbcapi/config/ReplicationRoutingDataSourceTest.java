@@ -0,0 +1,118 @@
+package ua.foxminded.springbootjdbcapi.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicationRoutingDataSourceTest {
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        //arrange
+        MockitoAnnotations.openMocks(this);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void getConnectionShouldRouteReadOnlyTransactionsToReplicaAndTheRestToPrimary() throws SQLException {
+        //arrange
+        ReplicationRoutingDataSource dataSource = new ReplicationRoutingDataSource(primary, replica, Duration.ZERO, clock::get);
+
+        //act
+        Connection readWrite = dataSource.getConnection();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection readOnly = dataSource.getConnection();
+
+        //assert
+        assertSame(primaryConnection, readWrite);
+        assertSame(replicaConnection, readOnly);
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+    }
+
+    @Test
+    void getConnectionShouldKeepReadsOnPrimaryWithinReadYourWritesWindowAfterCommit() throws SQLException {
+        //arrange
+        ReplicationRoutingDataSource dataSource = new ReplicationRoutingDataSource(primary, replica, Duration.ofSeconds(2), clock::get);
+        dataSource.getConnection();
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //act
+        Connection insideWindow = dataSource.getConnection();
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        Connection afterWindow = dataSource.getConnection();
+
+        //assert
+        assertSame(primaryConnection, insideWindow);
+        assertSame(replicaConnection, afterWindow);
+    }
+
+    @Test
+    void getConnectionShouldIgnoreRolledBackWrites() throws SQLException {
+        //arrange
+        ReplicationRoutingDataSource dataSource = new ReplicationRoutingDataSource(primary, replica, Duration.ofSeconds(2), clock::get);
+        dataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //act
+        Connection readOnly = dataSource.getConnection();
+
+        //assert
+        assertSame(replicaConnection, readOnly);
+    }
+
+    @Test
+    void getConnectionShouldNotOpenReadYourWritesWindowOutsideTransactions() throws SQLException {
+        //arrange
+        ReplicationRoutingDataSource dataSource = new ReplicationRoutingDataSource(primary, replica, Duration.ofSeconds(2), clock::get);
+        TransactionSynchronizationManager.clear();
+        Connection autoCommit = dataSource.getConnection();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //act
+        Connection readOnly = dataSource.getConnection();
+
+        //assert
+        assertSame(primaryConnection, autoCommit);
+        assertSame(replicaConnection, readOnly);
+    }
+}
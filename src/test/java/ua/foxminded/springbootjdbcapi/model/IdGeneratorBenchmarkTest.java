@@ -0,0 +1,110 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// mvn test -Dtest=IdGeneratorBenchmarkTest -Dschool.benchmark=true [-Dschool.benchmark.rows=1000000]
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "school.benchmark", matches = "true")
+@Testcontainers
+class IdGeneratorBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorBenchmarkTest.class);
+    private static final int ROWS = Integer.getInteger("school.benchmark.rows", 1_000_000);
+    private static final int BATCH_SIZE = 10_000;
+    private static final int COURSES = 10;
+    private static final int MAX_COURSES_PER_STUDENT = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test");
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS id_benchmark_random, id_benchmark_uuid7");
+    }
+
+    @Test
+    void insert_GivenMillionEnrollments_WhenStudentsKeyedByUuid7_ThenPrimaryKeyStaysSmallerThanWithRandomIds() {
+        // Given
+        // When
+        Result random = insert("id_benchmark_random", IdGenerator.RANDOM);
+        Result uuid7 = insert("id_benchmark_uuid7", new UuidV7Generator());
+
+        // Then
+        logger.info("{} ids: {} enrollments/s, {} kB primary key, {} kB (course_id, student_id) index",
+                "random", random.rowsPerSecond(), random.primaryKeyBytes() / 1024, random.courseIndexBytes() / 1024);
+        logger.info("{} ids: {} enrollments/s, {} kB primary key, {} kB (course_id, student_id) index",
+                "uuid7", uuid7.rowsPerSecond(), uuid7.primaryKeyBytes() / 1024, uuid7.courseIndexBytes() / 1024);
+        // only the primary key is asserted: (course_id, student_id) appends in the middle of the tree, where pages split 50/50
+        assertTrue(uuid7.primaryKeyBytes() < random.primaryKeyBytes());
+    }
+
+    // shaped like student_courses: PRIMARY KEY (student_id, course_id) plus the (course_id, student_id) roster index;
+    // each new student is enrolled in one to three of a fixed set of courses, in batches like the bulk loader
+    private Result insert(String table, IdGenerator generator) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table + " (student_id UUID NOT NULL, course_id UUID NOT NULL, " +
+                             "PRIMARY KEY (student_id, course_id))");
+        jdbcTemplate.execute("CREATE INDEX " + table + "_course_id ON " + table + " (course_id, student_id)");
+        jdbcTemplate.execute("CHECKPOINT");
+
+        List<UUID> courseIds = new ArrayList<>(COURSES);
+        for (int i = 0; i < COURSES; i++) {
+            courseIds.add(generator.next());
+        }
+        SplittableRandom random = new SplittableRandom(42);
+
+        long start = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int rows = 0;
+        while (rows < ROWS) {
+            UUID studentId = generator.next();
+            int first = random.nextInt(COURSES);
+            int courses = Math.min(random.nextInt(MAX_COURSES_PER_STUDENT) + 1, ROWS - rows);
+            for (int i = 0; i < courses; i++) {
+                batch.add(new Object[]{studentId, courseIds.get((first + i) % COURSES)});
+            }
+            rows += courses;
+
+            if (batch.size() >= BATCH_SIZE || rows == ROWS) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + table + " (student_id, course_id) VALUES (?, ?)", batch);
+                batch.clear();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class));
+        return new Result(Math.round(ROWS / (elapsed / 1_000_000_000.0)),
+                jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class, table + "_pkey"),
+                jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class, table + "_course_id"));
+    }
+
+    private record Result(long rowsPerSecond, long primaryKeyBytes, long courseIndexBytes) {
+    }
+}
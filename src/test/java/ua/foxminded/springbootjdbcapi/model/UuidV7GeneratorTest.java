@@ -0,0 +1,85 @@
+package ua.foxminded.springbootjdbcapi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+    // the order PostgreSQL sorts uuid columns in
+    private static final Comparator<UUID> UNSIGNED = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    @Test
+    void nextShouldEncodeTimestampVersionAndVariant() {
+        //arrange
+        UuidV7Generator generator = new UuidV7Generator(() -> 0x017F22E279B0L);
+
+        //act
+        UUID id = generator.next();
+
+        //assert
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(0x017F22E279B0L, id.getMostSignificantBits() >>> 16);
+        assertTrue(id.toString().startsWith("017f22e2-79b0-7"));
+    }
+
+    @Test
+    void nextShouldStayOrderedWithinOneMillisecondAndPastCounterOverflow() {
+        //arrange
+        UuidV7Generator generator = new UuidV7Generator(() -> 1_700_000_000_000L);
+        List<UUID> ids = new ArrayList<>();
+
+        //act
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.next());
+        }
+
+        //assert
+        List<UUID> sorted = new ArrayList<>(ids);
+        sorted.sort(UNSIGNED);
+        assertEquals(sorted, ids);
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+    }
+
+    @Test
+    void nextShouldStayOrderedWhenClockStepsBack() {
+        //arrange
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        UuidV7Generator generator = new UuidV7Generator(clock::get);
+        UUID before = generator.next();
+
+        //act
+        clock.addAndGet(-5_000);
+        UUID after = generator.next();
+
+        //assert
+        assertTrue(UNSIGNED.compare(before, after) < 0);
+    }
+
+    @Test
+    void sequentialShouldOrderBySequenceAndRepeatForTheSameInput() {
+        //arrange
+        long baseMillis = 1_700_000_000_000L;
+
+        //act
+        UUID first = UuidV7Generator.sequential(baseMillis, 4095, -1L);
+        UUID second = UuidV7Generator.sequential(baseMillis, 4096, 0L);
+
+        //assert
+        assertEquals(7, first.version());
+        assertEquals(2, second.variant());
+        assertEquals(baseMillis, first.getMostSignificantBits() >>> 16);
+        assertEquals(baseMillis + 1, second.getMostSignificantBits() >>> 16);
+        assertTrue(UNSIGNED.compare(first, second) < 0);
+        assertEquals(first, UuidV7Generator.sequential(baseMillis, 4095, -1L));
+    }
+}
@@ -0,0 +1,138 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.repository.BulkRepository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class BulkGenerateServiceTest {
+
+    @Mock
+    private BulkRepository bulkRepository;
+
+    @BeforeEach
+    void setUp() {
+        //arrange
+        MockitoAnnotations.openMocks(this);
+        when(bulkRepository.insertGroups(anyCollection())).thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+        when(bulkRepository.insertCourses(anyCollection())).thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+        when(bulkRepository.insertStudents(anyCollection())).thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+        when(bulkRepository.insertEnrollments(anyCollection())).thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateShouldInsertConfiguredRowCountsInChunks() {
+        //arrange
+        BulkGenerateService bulkGenerateService = new BulkGenerateService(bulkRepository, 5, 12, 2500, 3, 1000, 2, 42);
+        ArgumentCaptor<Collection<Student>> students = ArgumentCaptor.forClass(Collection.class);
+
+        //act
+        bulkGenerateService.generate();
+
+        //assert
+        verify(bulkRepository, times(1)).insertGroups(argThat(groups -> groups.size() == 5));
+        verify(bulkRepository, times(1)).insertCourses(argThat(courses -> courses.size() == 12));
+        verify(bulkRepository, times(3)).insertStudents(students.capture());
+        verify(bulkRepository, times(3)).insertEnrollments(anyCollection());
+        assertEquals(List.of(500, 1000, 1000), students.getAllValues().stream().map(Collection::size).sorted().toList());
+    }
+
+    @Test
+    void generateShouldProduceSameDatasetForSameSeed() {
+        //act
+        Set<String> first = generateDataset(new BulkGenerateService(bulkRepository, 3, 4, 3000, 2, 250, 4, 7));
+        clearInvocations(bulkRepository);
+        Set<String> second = generateDataset(new BulkGenerateService(bulkRepository, 3, 4, 3000, 2, 250, 2, 7));
+
+        //assert
+        assertEquals(first, second);
+    }
+
+    @Test
+    void generateShouldProduceDifferentDatasetForDifferentSeed() {
+        //act
+        Set<String> first = generateDataset(new BulkGenerateService(bulkRepository, 3, 4, 100, 2, 50, 2, 7));
+        clearInvocations(bulkRepository);
+        Set<String> second = generateDataset(new BulkGenerateService(bulkRepository, 3, 4, 100, 2, 50, 2, 8));
+
+        //assert
+        assertNotEquals(first, second);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> generateDataset(BulkGenerateService bulkGenerateService) {
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+
+        bulkGenerateService.generate();
+
+        verify(bulkRepository).insertGroups((Collection) rows.capture());
+        verify(bulkRepository).insertCourses((Collection) rows.capture());
+        verify(bulkRepository, atLeastOnce()).insertStudents((Collection) rows.capture());
+        verify(bulkRepository, atLeastOnce()).insertEnrollments((Collection) rows.capture());
+
+        Set<String> dataset = new HashSet<>();
+        rows.getAllValues().forEach(batch -> batch.forEach(row -> dataset.add(row.toString())));
+        return dataset;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateShouldNotEnrollStudentTwiceInSameCourse() {
+        //arrange
+        BulkGenerateService bulkGenerateService = new BulkGenerateService(bulkRepository, 2, 3, 500, 3, 500, 2, 42);
+        ArgumentCaptor<Collection<Enrollment>> enrollments = ArgumentCaptor.forClass(Collection.class);
+
+        //act
+        bulkGenerateService.generate();
+
+        //assert
+        verify(bulkRepository).insertEnrollments(enrollments.capture());
+        Collection<Enrollment> generated = enrollments.getValue();
+        Set<Enrollment> unique = new HashSet<>(generated);
+        assertEquals(generated.size(), unique.size());
+        assertTrue(generated.size() >= 500 && generated.size() <= 1500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateShouldAssignV7StudentIdsInInsertOrder() {
+        //arrange
+        BulkGenerateService bulkGenerateService = new BulkGenerateService(bulkRepository, 2, 3, 10_000, 1, 2500, 2, 42);
+        ArgumentCaptor<Collection<Student>> students = ArgumentCaptor.forClass(Collection.class);
+
+        //act
+        bulkGenerateService.generate();
+
+        //assert
+        verify(bulkRepository, times(4)).insertStudents(students.capture());
+        List<UUID> ids = students.getAllValues().stream()
+                .sorted(Comparator.comparing(chunk -> chunk.iterator().next().getId()))
+                .flatMap(Collection::stream)
+                .map(Student::getId)
+                .toList();
+        assertTrue(ids.stream().allMatch(id -> id.version() == 7));
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @Test
+    void constructorShouldRejectMoreCoursesPerStudentThanCourses() {
+        //act & assert
+        assertThrows(IllegalArgumentException.class, () -> new BulkGenerateService(bulkRepository, 1, 2, 10, 3, 10, 2, 42));
+    }
+}
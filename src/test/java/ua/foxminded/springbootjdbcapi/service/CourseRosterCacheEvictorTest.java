@@ -0,0 +1,79 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import ua.foxminded.springbootjdbcapi.config.CacheConfig;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.repository.CourseRepository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CourseRosterCacheEvictorTest {
+    private static final UUID MATH_ID = new UUID(0, 1);
+    private static final UUID STUDENT_2_ID = new UUID(0, 2);
+    private static final UUID STUDENT_4_ID = new UUID(0, 4);
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    private CacheManager cacheManager;
+
+    private CourseRosterCacheEvictor evictor;
+
+    @BeforeEach
+    void setUp() {
+        //arrange
+        MockitoAnnotations.openMocks(this);
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.COURSE_ROSTERS_CACHE);
+        cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE).put("Math", List.of());
+        cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE).put("History", List.of());
+        evictor = new CourseRosterCacheEvictor(courseRepository, cacheManager);
+    }
+
+    @Test
+    void onEnrollmentChangedShouldEvictOnlyAffectedCourses() {
+        //arrange
+        when(courseRepository.findNamesByIdIn(Set.of(MATH_ID))).thenReturn(List.of("Math"));
+
+        //act
+        evictor.onEnrollmentChanged(new EnrollmentChangedEvent(
+                List.of(new Enrollment(STUDENT_4_ID, MATH_ID)), List.of(new Enrollment(STUDENT_2_ID, MATH_ID))));
+
+        //assert
+        assertNull(cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE).get("Math"));
+        assertNotNull(cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE).get("History"));
+    }
+
+    @Test
+    void onEnrollmentChangedShouldSkipLookupWhenNothingChanged() {
+        //act
+        evictor.onEnrollmentChanged(EnrollmentChangedEvent.enrolled(List.of()));
+
+        //assert
+        verify(courseRepository, never()).findNamesByIdIn(anyCollection());
+        assertNotNull(cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE).get("Math"));
+    }
+
+    @Test
+    void onEnrollmentsResetShouldClearEveryRoster() {
+        //act
+        evictor.onEnrollmentsReset(new EnrollmentsResetEvent());
+
+        //assert
+        assertNull(cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE).get("Math"));
+        assertNull(cacheManager.getCache(CacheConfig.COURSE_ROSTERS_CACHE).get("History"));
+        verifyNoInteractions(courseRepository);
+    }
+}
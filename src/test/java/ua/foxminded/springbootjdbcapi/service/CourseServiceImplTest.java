@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.test.context.jdbc.Sql;
@@ -12,15 +13,22 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ua.foxminded.springbootjdbcapi.service.CourseService;
 import ua.foxminded.springbootjdbcapi.model.Course;
+import ua.foxminded.springbootjdbcapi.model.CourseEnrollmentCount;
+import ua.foxminded.springbootjdbcapi.model.CourseEnrollmentStatistics;
+import ua.foxminded.springbootjdbcapi.model.EntityIds;
+import ua.foxminded.springbootjdbcapi.model.KeysetPage;
+import ua.foxminded.springbootjdbcapi.repository.EnrollmentStatisticsRepository;
 
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
-        CourseService.class
+        CourseService.class, EntityCacheService.class, EnrollmentStatisticsRepository.class
 }))
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Sql(
@@ -33,6 +41,12 @@ class CourseServiceImplTest {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private EnrollmentStatisticsRepository statisticsRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Container
     private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest")
             .withDatabaseName("test")
@@ -43,39 +57,57 @@ class CourseServiceImplTest {
     void deleteById_GivenId1_WhenDeleted_ThenCourseIsRemoved() {
         // Given
         // When
-        courseService.deleteById("1");
+        courseService.deleteById("00000000-0000-0000-0000-000000000001");
 
         // Then
-        assertThrows(NoSuchElementException.class, () -> courseService.getById("1"), "There is no such course with ID: 1");
+        assertThrows(NoSuchElementException.class, () -> courseService.getById("00000000-0000-0000-0000-000000000001"), "There is no such course with ID: 1");
     }
 
     @Test
     void deleteById_GivenId1_WhenDeleted_ThenRowsAffectedIs1() {
         // Given
         // When
-        boolean wasDeleted = courseService.deleteById("1");
+        boolean wasDeleted = courseService.deleteById("00000000-0000-0000-0000-000000000001");
 
         // Then
         assertTrue(wasDeleted);
     }
 
+    @Test
+    void deleteById_GivenCourseWithSeveralStudents_WhenDeleted_ThenStudentsKeepTheirOtherCourses() {
+        // Given
+        UUID mathId = EntityIds.parse("00000000-0000-0000-0000-000000000001");
+
+        // When
+        courseService.deleteById("00000000-0000-0000-0000-000000000003");
+        entityManager.flush();
+
+        // Then
+        List<UUID> enrolledCourseIds = entityManager.getEntityManager()
+                .createQuery("SELECT c.id FROM Student s JOIN s.courses c WHERE s.id IN :ids", UUID.class)
+                .setParameter("ids", Set.of(EntityIds.parse("00000000-0000-0000-0000-000000000001"),
+                        EntityIds.parse("00000000-0000-0000-0000-000000000004")))
+                .getResultList();
+        assertEquals(List.of(mathId), enrolledCourseIds);
+    }
+
     @Test
     void modify_GivenCourseWithNewNameAndDescription_WhenUpdated_ThenCourseIsUpdated() {
         // Given
-        Course newCourse = new Course("1", "test", "test");
+        Course newCourse = new Course("00000000-0000-0000-0000-000000000001", "test", "test");
 
         // When
         courseService.update(newCourse);
 
         // Then
-        assertEquals(newCourse.getName(), courseService.getById("1").getName());
-        assertEquals(newCourse.getDescription(), courseService.getById("1").getDescription());
+        assertEquals(newCourse.getName(), courseService.getById("00000000-0000-0000-0000-000000000001").getName());
+        assertEquals(newCourse.getDescription(), courseService.getById("00000000-0000-0000-0000-000000000001").getDescription());
     }
 
     @Test
     void modify_GivenCourse_WhenUpdated_ThenRowsAffectedIs1() {
         // Given
-        Course newCourse = new Course("1", "test", "test");
+        Course newCourse = new Course("00000000-0000-0000-0000-000000000001", "test", "test");
 
         // When
         boolean wasSaved = courseService.update(newCourse);
@@ -103,11 +135,11 @@ class CourseServiceImplTest {
     @Test
     void fetchById_GivenNewlyCreatedCourse_WhenFetched_ThenReturnNewCourse() {
         // Given
-        Course expected = new Course("33", "test", "test");
+        Course expected = new Course("00000000-0000-0000-0000-000000000033", "test", "test");
         courseService.save(expected);
 
         // When
-        Course actual = courseService.getById("33");
+        Course actual = courseService.getById("00000000-0000-0000-0000-000000000033");
 
         // Then
         assertEquals(expected, actual);
@@ -116,10 +148,10 @@ class CourseServiceImplTest {
     @Test
     void fetchById_GivenId1_WhenFetched_ThenReturnCourseWithId1() {
         // Given
-        Course expected = new Course("1", "Math", "Intro to math");
+        Course expected = new Course("00000000-0000-0000-0000-000000000001", "Math", "Intro to math");
 
         // When
-        Course actual = courseService.getById("1");
+        Course actual = courseService.getById("00000000-0000-0000-0000-000000000001");
 
         // Then
         assertEquals(expected, actual);
@@ -128,19 +160,19 @@ class CourseServiceImplTest {
     @Test
     void store_GivenNewCourse_WhenSaved_ThenRetrieveThisCourse() {
         // Given
-        Course newCourse = new Course("101", "test", "test");
+        Course newCourse = new Course("00000000-0000-0000-0000-000000000101", "test", "test");
 
         // When
         courseService.save(newCourse);
 
         // Then
-        assertEquals(newCourse, courseService.getById("101"));
+        assertEquals(newCourse, courseService.getById("00000000-0000-0000-0000-000000000101"));
     }
 
     @Test
     void store_GivenNewCourse_WhenSaved_ThenRowsAffectedIs1() {
         // Given
-        Course newCourse = new Course("101", "test", "test");
+        Course newCourse = new Course("00000000-0000-0000-0000-000000000101", "test", "test");
 
         // When
         boolean wasSaved = courseService.save(newCourse);
@@ -152,7 +184,7 @@ class CourseServiceImplTest {
     @Test
     void existsById_GivenExistingId_WhenChecked_ThenReturnsTrue() {
         // Given
-        String existingId = "1";
+        String existingId = "00000000-0000-0000-0000-000000000001";
 
         // When
         boolean exists = courseService.existsById(existingId);
@@ -164,7 +196,7 @@ class CourseServiceImplTest {
     @Test
     void existsById_GivenNonExistingId_WhenChecked_ThenReturnsFalse() {
         // Given
-        String nonExistingId = "999";
+        String nonExistingId = "00000000-0000-0000-0000-000000000999";
 
         // When
         boolean exists = courseService.existsById(nonExistingId);
@@ -185,7 +217,7 @@ class CourseServiceImplTest {
     @Test
     void getAllIds_WhenCalled_ThenReturnsListOfAllIds() {
         // Given
-        List<String> expectedIds = List.of("1", "2", "3");
+        List<String> expectedIds = List.of("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-000000000003");
 
         // When
         List<String> actualIds = courseService.getAllIds();
@@ -197,4 +229,72 @@ class CourseServiceImplTest {
         assertTrue(actualIds.containsAll(expectedIds));
     }
 
+    @Test
+    void getCoursesPage_GivenCursorOfFirstCourse_WhenFetched_ThenReturnRemainingCourses() {
+        // When
+        KeysetPage<Course> page = courseService.getCoursesPage("00000000-0000-0000-0000-000000000001", 5);
+
+        // Then
+        assertEquals(List.of("00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-000000000003"), page.content().stream().map(course -> course.getId().toString()).toList());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void patch_GivenOnlyDescription_WhenPatched_ThenKeepName() {
+        // Given
+        Course patch = new Course("00000000-0000-0000-0000-000000000001", null, "Advanced math");
+
+        // When
+        courseService.patch(patch);
+
+        // Then
+        Course actual = courseService.getById("00000000-0000-0000-0000-000000000001");
+        assertEquals("Math", actual.getName());
+        assertEquals("Advanced math", actual.getDescription());
+    }
+
+    @Test
+    void update_GivenNonExistingCourse_WhenUpdated_ThenThrowNoSuchElementException() {
+        // Given
+        Course course = new Course("00000000-0000-0000-0000-000000000999", "test", "test");
+
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> courseService.update(course));
+    }
+
+    @Test
+    void getEnrollmentStatistics_GivenRefreshedViews_WhenFetched_ThenReturnCountsAverageAndMatrix() {
+        // Given
+        statisticsRepository.refresh();
+
+        // When
+        CourseEnrollmentStatistics statistics = courseService.getEnrollmentStatistics();
+
+        // Then
+        assertEquals(List.of(new CourseEnrollmentCount("00000000-0000-0000-0000-000000000003", "Computer Science", 2),
+                new CourseEnrollmentCount("00000000-0000-0000-0000-000000000002", "History", 1),
+                new CourseEnrollmentCount("00000000-0000-0000-0000-000000000001", "Math", 2)), statistics.courses());
+        assertEquals(1.25, statistics.averageCoursesPerStudent());
+        assertEquals(2, statistics.studentCount("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000001"));
+        assertEquals(2, statistics.studentCount("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000003"));
+        assertEquals(1, statistics.studentCount("00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-000000000002"));
+        assertEquals(0, statistics.studentCount("00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    void getEnrollmentStatistics_GivenCourseAddedAfterRefresh_WhenFetchedBeforeNextRefresh_ThenReturnSnapshot() {
+        // Given
+        statisticsRepository.refresh();
+        courseService.save(new Course("00000000-0000-0000-0000-000000000004", "Art", "Drawing"));
+        entityManager.flush();
+
+        // When
+        CourseEnrollmentStatistics stale = courseService.getEnrollmentStatistics();
+        statisticsRepository.refresh();
+        CourseEnrollmentStatistics fresh = courseService.getEnrollmentStatistics();
+
+        // Then
+        assertEquals(3, stale.courses().size());
+        assertEquals(new CourseEnrollmentCount("00000000-0000-0000-0000-000000000004", "Art", 0), fresh.courses().get(0));
+    }
 }
@@ -0,0 +1,267 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import ua.foxminded.springbootjdbcapi.model.CourseDeletedEvent;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.repository.BulkRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EnrollmentIndexTest {
+    private static final UUID EVEN = id(100);
+    private static final UUID ODD = id(101);
+
+    @Mock
+    private BulkRepository bulkRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Enrollment> table = new ArrayList<>();
+
+    private EnrollmentIndex enrollmentIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        //arrange
+        MockitoAnnotations.openMocks(this);
+        table.addAll(List.of(new Enrollment(id(1), id(1)), new Enrollment(id(1), id(3)), new Enrollment(id(2), id(1)),
+                new Enrollment(id(3), id(2)), new Enrollment(id(4), id(3))));
+        doAnswer(invocation -> {
+            BiConsumer<UUID, UUID> consumer = invocation.getArgument(0);
+            table.forEach(enrollment -> consumer.accept(enrollment.studentId(), enrollment.courseId()));
+            return null;
+        }).when(bulkRepository).forEachEnrollment(any(BiConsumer.class));
+        when(bulkRepository.countEnrollmentsByCourse()).thenAnswer(invocation -> {
+            Map<UUID, Long> counts = new HashMap<>();
+            table.forEach(enrollment -> counts.merge(enrollment.courseId(), 1L, Long::sum));
+            return counts;
+        });
+        enrollmentIndex = new EnrollmentIndex(bulkRepository, transactionManager);
+    }
+
+    @Test
+    void queriesShouldBeServedFromIndexBuiltOnce() {
+        //act
+        boolean enrolled = enrollmentIndex.isEnrolled(id(1), id(3));
+        boolean notEnrolled = enrollmentIndex.isEnrolled(id(3), id(1));
+        long count = enrollmentIndex.countStudents(id(1));
+        List<UUID> inBoth = enrollmentIndex.findStudentsInAllCourses(List.of(id(1), id(3)));
+
+        //assert
+        assertTrue(enrolled);
+        assertFalse(notEnrolled);
+        assertEquals(2, count);
+        assertEquals(List.of(id(1)), inBoth);
+        verify(bulkRepository, times(1)).forEachEnrollment(any());
+    }
+
+    @Test
+    void buildShouldSuspendTheCallersTransactionAndStayReadWrite() {
+        //act
+        enrollmentIndex.countStudents(id(1));
+
+        //assert
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NOT_SUPPORTED && !definition.isReadOnly()));
+    }
+
+    @Test
+    void onCourseDeletedShouldDropTheCourseBitmap() {
+        //arrange
+        enrollmentIndex.countStudents(id(3));
+
+        //act
+        enrollmentIndex.onCourseDeleted(new CourseDeletedEvent(id(3)));
+
+        //assert
+        assertEquals(0, enrollmentIndex.countStudents(id(3)));
+        assertFalse(enrollmentIndex.isEnrolled(id(1), id(3)));
+        assertEquals(List.of(), enrollmentIndex.findStudentsInAllCourses(List.of(id(1), id(3))));
+        assertEquals(2, enrollmentIndex.countStudents(id(1)));
+        verify(bulkRepository, times(1)).forEachEnrollment(any());
+    }
+
+    @Test
+    void onEnrollmentChangedShouldUpdateBitmaps() {
+        //arrange
+        enrollmentIndex.countStudents(id(1));
+
+        //act
+        enrollmentIndex.onEnrollmentChanged(new EnrollmentChangedEvent(
+                List.of(new Enrollment(id(3), id(1)), new Enrollment(id(5), id(3))), List.of(new Enrollment(id(2), id(1)))));
+
+        //assert
+        assertTrue(enrollmentIndex.isEnrolled(id(3), id(1)));
+        assertFalse(enrollmentIndex.isEnrolled(id(2), id(1)));
+        assertEquals(List.of(id(1), id(4), id(5)), enrollmentIndex.findStudentsInAllCourses(List.of(id(3))));
+    }
+
+    @Test
+    void bitmapsShouldGrowPastInitialCapacity() {
+        //arrange
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            enrollments.add(new Enrollment(id(1000 + i), i % 2 == 0 ? EVEN : ODD));
+        }
+
+        //act
+        enrollmentIndex.countStudents(id(1));
+        enrollmentIndex.onEnrollmentChanged(EnrollmentChangedEvent.enrolled(enrollments));
+
+        //assert
+        assertEquals(2500, enrollmentIndex.countStudents(EVEN));
+        assertTrue(enrollmentIndex.isEnrolled(id(5999), ODD));
+        assertTrue(enrollmentIndex.findStudentsInAllCourses(List.of(EVEN, ODD)).isEmpty());
+    }
+
+    @Test
+    void ordinalsShouldFindRandomIdsAfterRehashing() {
+        //arrange
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            enrollments.add(new Enrollment(UUID.randomUUID(), EVEN));
+        }
+        enrollmentIndex.countStudents(id(1));
+
+        //act
+        enrollmentIndex.onEnrollmentChanged(EnrollmentChangedEvent.enrolled(enrollments));
+
+        //assert
+        assertEquals(3000, enrollmentIndex.countStudents(EVEN));
+        assertTrue(enrollments.stream().allMatch(enrollment -> enrollmentIndex.isEnrolled(enrollment.studentId(), EVEN)));
+        assertFalse(enrollmentIndex.isEnrolled(UUID.randomUUID(), EVEN));
+        assertEquals(3000, enrollmentIndex.findStudentsInAllCourses(List.of(EVEN)).size());
+    }
+
+    @Test
+    void warmShouldBuildTheIndexOnce() {
+        //act
+        enrollmentIndex.warm();
+        enrollmentIndex.warm();
+        long count = enrollmentIndex.countStudents(id(1));
+
+        //assert
+        assertEquals(2, count);
+        verify(bulkRepository, times(1)).forEachEnrollment(any());
+    }
+
+    @Test
+    void verifyShouldCompactOrdinalsOfUnenrolledStudents() {
+        //arrange
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            enrollments.add(new Enrollment(id(1000 + i), EVEN));
+        }
+        enrollmentIndex.countStudents(id(1));
+        enrollmentIndex.onEnrollmentChanged(EnrollmentChangedEvent.enrolled(enrollments));
+        enrollmentIndex.onEnrollmentChanged(EnrollmentChangedEvent.unenrolled(enrollments));
+
+        //act
+        boolean consistent = enrollmentIndex.verify();
+        boolean stillConsistent = enrollmentIndex.verify();
+
+        //assert
+        assertTrue(consistent);
+        assertTrue(stillConsistent);
+        assertEquals(0, enrollmentIndex.countStudents(EVEN));
+        assertTrue(enrollmentIndex.isEnrolled(id(4), id(3)));
+        verify(bulkRepository, times(2)).forEachEnrollment(any());
+    }
+
+    @Test
+    void verifyShouldRebuildWhenTableDrifted() {
+        //arrange
+        enrollmentIndex.countStudents(id(1));
+        table.add(new Enrollment(id(3), id(1)));
+
+        //act
+        boolean consistent = enrollmentIndex.verify();
+
+        //assert
+        assertFalse(consistent);
+        assertTrue(enrollmentIndex.isEnrolled(id(3), id(1)));
+        assertTrue(enrollmentIndex.verify());
+    }
+
+    @Test
+    void verifyShouldIgnoreMismatchWhileTheListenerCatchesUp() {
+        //arrange
+        enrollmentIndex.countStudents(id(1));
+        Enrollment committed = new Enrollment(id(3), id(1));
+        table.add(committed);
+        Map<UUID, Long> seenByCount = new HashMap<>();
+        table.forEach(enrollment -> seenByCount.merge(enrollment.courseId(), 1L, Long::sum));
+        when(bulkRepository.countEnrollmentsByCourse()).thenAnswer(invocation -> {
+            enrollmentIndex.onEnrollmentChanged(EnrollmentChangedEvent.enrolled(List.of(committed)));
+            return seenByCount;
+        }).thenReturn(seenByCount);
+
+        //act
+        boolean consistent = enrollmentIndex.verify();
+
+        //assert
+        assertTrue(consistent);
+        assertTrue(enrollmentIndex.isEnrolled(id(3), id(1)));
+        verify(bulkRepository, times(1)).forEachEnrollment(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void verifyShouldReplayChangesCommittedDuringTheRebuild() {
+        //arrange
+        enrollmentIndex.countStudents(id(1));
+        table.add(new Enrollment(id(3), id(1)));
+        doAnswer(invocation -> {
+            BiConsumer<UUID, UUID> consumer = invocation.getArgument(0);
+            table.forEach(enrollment -> consumer.accept(enrollment.studentId(), enrollment.courseId()));
+            table.remove(new Enrollment(id(2), id(1)));
+            enrollmentIndex.onEnrollmentChanged(EnrollmentChangedEvent.unenrolled(List.of(new Enrollment(id(2), id(1)))));
+            return null;
+        }).when(bulkRepository).forEachEnrollment(any(BiConsumer.class));
+
+        //act
+        boolean consistent = enrollmentIndex.verify();
+
+        //assert
+        assertFalse(consistent);
+        assertTrue(enrollmentIndex.isEnrolled(id(3), id(1)));
+        assertFalse(enrollmentIndex.isEnrolled(id(2), id(1)));
+        assertTrue(enrollmentIndex.verify());
+    }
+
+    @Test
+    void onEnrollmentsResetShouldReloadOnNextQuery() {
+        //arrange
+        enrollmentIndex.countStudents(id(1));
+        table.clear();
+
+        //act
+        enrollmentIndex.onEnrollmentsReset(new EnrollmentsResetEvent());
+
+        //assert
+        assertEquals(0, enrollmentIndex.countStudents(id(1)));
+        verify(bulkRepository, times(2)).forEachEnrollment(any());
+    }
+
+    private static UUID id(long value) {
+        return new UUID(0, value);
+    }
+}
@@ -0,0 +1,93 @@
+package ua.foxminded.springbootjdbcapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.CourseDeletedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentChangedEvent;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentsResetEvent;
+import ua.foxminded.springbootjdbcapi.repository.EnrollmentStatisticsRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EnrollmentStatisticsRefresherTest {
+
+    @Mock
+    private EnrollmentStatisticsRepository statisticsRepository;
+
+    private EnrollmentStatisticsRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        //arrange
+        MockitoAnnotations.openMocks(this);
+        refresher = new EnrollmentStatisticsRefresher(statisticsRepository, 3, Duration.ofHours(1));
+    }
+
+    @Test
+    void refreshIfDueShouldWaitUntilEnoughEnrollmentsChanged() {
+        //arrange
+        refresher.onEnrollmentChanged(EnrollmentChangedEvent.enrolled(List.of(newEnrollment())));
+
+        //act
+        boolean refreshedEarly = refresher.refreshIfDue();
+        refresher.onEnrollmentChanged(new EnrollmentChangedEvent(
+                List.of(newEnrollment()), List.of(newEnrollment())));
+        boolean refreshed = refresher.refreshIfDue();
+        boolean refreshedAgain = refresher.refreshIfDue();
+
+        //assert
+        assertFalse(refreshedEarly);
+        assertTrue(refreshed);
+        assertFalse(refreshedAgain);
+        verify(statisticsRepository, times(1)).refresh();
+    }
+
+    @Test
+    void refreshIfDueShouldRefreshAfterEnrollmentsReset() {
+        //act
+        refresher.onEnrollmentsReset(new EnrollmentsResetEvent());
+        boolean refreshed = refresher.refreshIfDue();
+
+        //assert
+        assertTrue(refreshed);
+        verify(statisticsRepository, times(1)).refresh();
+    }
+
+    @Test
+    void refreshIfDueShouldRefreshAfterCourseDeleted() {
+        //act
+        refresher.onCourseDeleted(new CourseDeletedEvent(UUID.randomUUID()));
+        boolean refreshed = refresher.refreshIfDue();
+
+        //assert
+        assertTrue(refreshed);
+        verify(statisticsRepository, times(1)).refresh();
+    }
+
+    @Test
+    void refreshShouldKeepPendingChangesWhenItFails() {
+        //arrange
+        refresher.onEnrollmentsReset(new EnrollmentsResetEvent());
+        doThrow(new IllegalStateException("refresh failed")).doNothing().when(statisticsRepository).refresh();
+
+        //act
+        assertThrows(IllegalStateException.class, () -> refresher.refreshIfDue());
+        boolean retried = refresher.refreshIfDue();
+
+        //assert
+        assertTrue(retried);
+        verify(statisticsRepository, times(2)).refresh();
+    }
+
+    private static Enrollment newEnrollment() {
+        return new Enrollment(UUID.randomUUID(), UUID.randomUUID());
+    }
+}
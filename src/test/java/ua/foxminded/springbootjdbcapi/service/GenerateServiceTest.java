@@ -10,8 +10,10 @@ import ua.foxminded.springbootjdbcapi.model.Group;
 import ua.foxminded.springbootjdbcapi.model.Student;
 
 import java.util.Arrays;
+import java.util.Collection;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 class GenerateServiceTest {
@@ -39,8 +41,9 @@ class GenerateServiceTest {
         when(groupService.save(any(Group.class))).thenReturn(true);
         when(courseService.save(any(Course.class))).thenReturn(true);
         when(schoolService.addStudentToCourse(anyString(), anyString())).thenReturn(true);
+        when(schoolService.addEnrollments(anyCollection())).thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
 
-        when(groupService.getAllIds()).thenReturn(Arrays.asList("1", "2"));
+        when(groupService.getAllIds()).thenReturn(Arrays.asList("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000002"));
         when(groupService.getById(anyString())).thenReturn(new Group("Test Group"));
         when(studentService.getAllIds()).thenReturn(Arrays.asList("student1", "student2"));
         when(courseService.getAllIds()).thenReturn(Arrays.asList("course1", "course2"));
@@ -82,4 +85,14 @@ class GenerateServiceTest {
         //assert
         verify(studentService, times(200)).save(any(Student.class));
     }
+
+    @Test
+    void assignStudentsToCoursesShouldWriteAllEnrollmentsInOnePass() {
+        //act
+        generateService.assignStudentsToCourses();
+
+        //assert
+        verify(schoolService, times(1)).addEnrollments(anyCollection());
+        verify(schoolService, never()).addStudentToCourse(anyString(), anyString());
+    }
 }
@@ -6,11 +6,14 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import ua.foxminded.springbootjdbcapi.service.GroupService;
 import ua.foxminded.springbootjdbcapi.model.Group;
+import ua.foxminded.springbootjdbcapi.model.GroupStudentCount;
+import ua.foxminded.springbootjdbcapi.model.KeysetPage;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -18,7 +21,7 @@ import java.util.NoSuchElementException;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
-        GroupService.class
+        GroupService.class, EntityCacheService.class
 }))
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Sql(
@@ -30,6 +33,9 @@ class GroupServiceImplTest {
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Container
     private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest")
             .withDatabaseName("test")
@@ -40,7 +46,7 @@ class GroupServiceImplTest {
     void removeById_GivenId2_WhenDeleted_ThenRowsAffectedIs1() {
         // Given
         // When
-        boolean wasDeleted = groupService.deleteById("2");
+        boolean wasDeleted = groupService.deleteById("00000000-0000-0000-0000-000000000002");
 
         // Then
         assertTrue(wasDeleted);
@@ -51,10 +57,28 @@ class GroupServiceImplTest {
     void removeById_GivenId1_WhenDeleted_ThenGroupIsRemoved() {
         // Given
         // When
-        groupService.deleteById("1");
+        groupService.deleteById("00000000-0000-0000-0000-000000000001");
+
+        // Then
+        assertThrows(NoSuchElementException.class, () ->  groupService.getById("00000000-0000-0000-0000-000000000001"), "There is no such group with ID: 1");
+    }
+
+    @Test
+    void removeById_GivenGroupWithStudent_WhenDeleted_ThenStudentStaysWithoutGroup() {
+        // Given
+        // When
+        groupService.deleteById("00000000-0000-0000-0000-000000000002");
 
         // Then
-        assertThrows(NoSuchElementException.class, () ->  groupService.getById("1"), "There is no such group with ID: 1");
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM students WHERE student_id = '00000000-0000-0000-0000-000000000003' AND group_id IS NULL", Integer.class));
+    }
+
+    @Test
+    void removeById_GivenNonExistingId_WhenDeleted_ThenThrowNoSuchElementException() {
+        // Given
+        // When
+        // Then
+        assertThrows(NoSuchElementException.class, () -> groupService.deleteById("00000000-0000-0000-0000-000000000999"));
     }
 
     @Test
@@ -74,11 +98,11 @@ class GroupServiceImplTest {
     @Test
     void retrieveById_GivenNewlyCreatedGroup_WhenFetched_ThenReturnNewGroup() {
         // Given
-        Group group = new Group("33", "test");
+        Group group = new Group("00000000-0000-0000-0000-000000000033", "test");
         groupService.save(group);
 
         // When
-        Group actual = groupService.getById("33");
+        Group actual = groupService.getById("00000000-0000-0000-0000-000000000033");
 
         // Then
         assertEquals(group, actual);
@@ -87,25 +111,25 @@ class GroupServiceImplTest {
     @Test
     void retrieveById_GivenNonExistingId_WhenFetched_ThenReturnOptionalEmpty() {
         // When & Then
-        assertThrows(NoSuchElementException.class, () -> groupService.getById("323"), "There is no such group with ID: 323");
+        assertThrows(NoSuchElementException.class, () -> groupService.getById("00000000-0000-0000-0000-000000000323"), "There is no such group with ID: 323");
     }
 
     @Test
     void modify_GivenGroupWithNewName_WhenUpdated_ThenChangeTheName() {
         // Given
-        Group group = new Group("1", "test");
+        Group group = new Group("00000000-0000-0000-0000-000000000001", "test");
 
         // When
         groupService.update(group);
 
         // Then
-        assertEquals(group, groupService.getById("1"));
+        assertEquals(group.getGroupName(), groupService.getById("00000000-0000-0000-0000-000000000001").getGroupName());
     }
 
     @Test
     void modify_GivenGroupWithNewName_WhenUpdated_ThenRowsAffectedIs1() {
         // Given
-        Group group = new Group("1", "test");
+        Group group = new Group("00000000-0000-0000-0000-000000000001", "test");
 
         // When
         boolean wasUpdated = groupService.update(group);
@@ -117,19 +141,21 @@ class GroupServiceImplTest {
     @Test
     void save_GivenNewGroup_WhenSaved_ThenRetrieveThisGroup() {
         // Given
-        Group group = new Group("332", "test");
+        Group group = new Group("00000000-0000-0000-0000-000000000332", "test");
 
         // When
         groupService.save(group);
 
         // Then
-        assertEquals(group, groupService.getById("332"));
+        Group actual = groupService.getById("00000000-0000-0000-0000-000000000332");
+        assertEquals(group, actual);
+        assertEquals(group.getGroupName(), actual.getGroupName());
     }
 
     @Test
     void save_GivenNewGroup_WhenSaved_ThenRowsAffectedIs1() {
         // Given
-        Group group = new Group("332", "test");
+        Group group = new Group("00000000-0000-0000-0000-000000000332", "test");
 
         // When
         boolean wasSaved = groupService.save(group);
@@ -141,19 +167,19 @@ class GroupServiceImplTest {
     @Test
     void findAllGroupsWithLessOrEqualStudentsNumber_GivenMaxStudents2_WhenSearched_ThenReturnMatchingGroups() {
         // Given
-        List<Group> expected = List.of(new Group("2", "Group B"));
+        List<String> expected = List.of("00000000-0000-0000-0000-000000000002 Group B 1");
 
         // When
-        List<Group> actual = groupService.findAllGroupsWithLessOrEqualsStudentCount(2);
+        List<GroupStudentCount> actual = groupService.findAllGroupsWithLessOrEqualsStudentCount(2);
 
         // Then
-        assertEquals(expected, actual);
+        assertEquals(expected, describe(actual));
     }
 
     @Test
     void existsById_GivenExistingId_WhenChecked_ThenReturnsTrue() {
         // Given
-        String existingId = "1";
+        String existingId = "00000000-0000-0000-0000-000000000001";
 
         // When
         boolean exists = groupService.existsById(existingId);
@@ -165,7 +191,7 @@ class GroupServiceImplTest {
     @Test
     void existsById_GivenNonExistingId_WhenChecked_ThenReturnsFalse() {
         // Given
-        String nonExistingId = "999";
+        String nonExistingId = "00000000-0000-0000-0000-000000000999";
 
         // When
         boolean exists = groupService.existsById(nonExistingId);
@@ -207,4 +233,98 @@ class GroupServiceImplTest {
         assertThrows(NoSuchElementException.class,() -> groupService.findAllGroupsWithLessOrEqualsStudentCount(studentCount),"There are no such groups with less or equals student count: " + studentCount);
     }
 
+    @Test
+    void findAllGroupsWithLessOrEqualsStudentCount_GivenMaxStudents3_WhenSearched_ThenReturnAllGroups() {
+        // Given
+        List<String> expected = List.of("00000000-0000-0000-0000-000000000001 Group A 3", "00000000-0000-0000-0000-000000000002 Group B 1");
+
+        // When
+        List<GroupStudentCount> actual = groupService.findAllGroupsWithLessOrEqualsStudentCount(3);
+
+        // Then
+        assertEquals(expected, describe(actual));
+    }
+
+    @Test
+    void findAllGroupsWithLessOrEqualsStudentCount_GivenGroupWithoutStudents_WhenSearchedWith0_ThenReturnThisGroup() {
+        // Given
+        Group emptyGroup = new Group("00000000-0000-0000-0000-000000000003", "Group C");
+        groupService.save(emptyGroup);
+
+        // When
+        List<GroupStudentCount> actual = groupService.findAllGroupsWithLessOrEqualsStudentCount(0);
+
+        // Then
+        assertEquals(List.of("00000000-0000-0000-0000-000000000003 Group C 0"), describe(actual));
+    }
+
+    @Test
+    void getGroupsPage_GivenPageSize1_WhenWalkedFromStart_ThenReturnOneGroupPerPage() {
+        // When
+        KeysetPage<Group> firstPage = groupService.getGroupsPage(null, 1);
+        KeysetPage<Group> secondPage = groupService.getGroupsPage(firstPage.nextCursor(), 1);
+
+        // Then
+        assertEquals(List.of(new Group("00000000-0000-0000-0000-000000000001", "Group A")), firstPage.content());
+        assertEquals("00000000-0000-0000-0000-000000000001", firstPage.nextCursor());
+        assertEquals(List.of(new Group("00000000-0000-0000-0000-000000000002", "Group B")), secondPage.content());
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    void deleteAll_GivenGroupsWithStudents_WhenDeleted_ThenThrowOnSecondCall() {
+        // Given
+        groupService.deleteAll();
+
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> groupService.deleteAll());
+        assertTrue(groupService.getAllIds().isEmpty());
+    }
+
+    @Test
+    void findAllGroupsWithLessOrEqualsStudentCount_GivenStudentMovedToOtherGroup_WhenSearched_ThenUseUpdatedCounts() {
+        // Given
+        jdbcTemplate.update("UPDATE students SET group_id = '00000000-0000-0000-0000-000000000002' WHERE student_id IN ('00000000-0000-0000-0000-000000000001', '00000000-0000-0000-0000-000000000002')");
+
+        // When
+        List<GroupStudentCount> actual = groupService.findAllGroupsWithLessOrEqualsStudentCount(1);
+
+        // Then
+        assertEquals(List.of("00000000-0000-0000-0000-000000000001 Group A 1"), describe(actual));
+    }
+
+    @Test
+    void studentCount_GivenGroupDeletedAndStudentRemoved_WhenRead_ThenTriggersKeptCountsExact() {
+        // Given
+        groupService.deleteById("00000000-0000-0000-0000-000000000002");
+        jdbcTemplate.update("DELETE FROM student_courses WHERE student_id = '00000000-0000-0000-0000-000000000004'");
+        jdbcTemplate.update("DELETE FROM students WHERE student_id = '00000000-0000-0000-0000-000000000004'");
+
+        // When
+        Integer count = jdbcTemplate.queryForObject("SELECT student_count FROM groups WHERE group_id = '00000000-0000-0000-0000-000000000001'", Integer.class);
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(0, groupService.repairStudentCountDrift());
+    }
+
+    @Test
+    void repairStudentCountDrift_GivenCorruptedCount_WhenRepaired_ThenCountMatchesStudents() {
+        // Given
+        jdbcTemplate.update("UPDATE groups SET student_count = 42 WHERE group_id = '00000000-0000-0000-0000-000000000001'");
+
+        // When
+        int repaired = groupService.repairStudentCountDrift();
+
+        // Then
+        assertEquals(1, repaired);
+        assertEquals(List.of("00000000-0000-0000-0000-000000000001 Group A 3", "00000000-0000-0000-0000-000000000002 Group B 1"),
+                describe(groupService.findAllGroupsWithLessOrEqualsStudentCount(3)));
+    }
+
+    private static List<String> describe(List<GroupStudentCount> groups) {
+        return groups.stream()
+                .map(group -> group.getId() + " " + group.getGroupName() + " " + group.getStudentCount())
+                .toList();
+    }
 }
@@ -12,7 +12,11 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ua.foxminded.springbootjdbcapi.service.SchoolService;
 import ua.foxminded.springbootjdbcapi.service.StudentService;
-import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.model.Enrollment;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentResult;
+import ua.foxminded.springbootjdbcapi.model.EnrollmentStatus;
+import ua.foxminded.springbootjdbcapi.model.StudentDetails;
+import ua.foxminded.springbootjdbcapi.repository.BulkRepository;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -20,10 +24,11 @@ import java.util.NoSuchElementException;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 @DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
-        SchoolService.class, StudentService.class
+        SchoolService.class, StudentService.class, BulkRepository.class, EntityCacheService.class, EnrollmentIndex.class
 }))
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Sql(
@@ -49,8 +54,8 @@ class SchoolServiceImplTest {
     @Test
     void enrollStudentToCourse_GivenStudent4AndCourse1_WhenAdded_ThenRowsAffectedIs1() {
         // Given
-        String studentId = "4";
-        String courseId = "1";
+        String studentId = "00000000-0000-0000-0000-000000000004";
+        String courseId = "00000000-0000-0000-0000-000000000001";
 
         // When
         boolean wasAdded = schoolService.addStudentToCourse(studentId, courseId);
@@ -62,13 +67,13 @@ class SchoolServiceImplTest {
     @Test
     void enrollStudentToCourse_GivenStudent4AndCourse1_WhenAdded_ThenStudentShouldBeSeenInCourse() {
         // Given
-        String studentId = "4";
-        String courseId = "1";
+        String studentId = "00000000-0000-0000-0000-000000000004";
+        String courseId = "00000000-0000-0000-0000-000000000001";
         schoolService.addStudentToCourse(studentId, courseId);
 
         // When
-        Student actual = studentDao.findAllStudentsByCourseName("Math").stream()
-                .filter(student -> student.getId().equals(studentId))
+        StudentDetails actual = studentDao.findAllStudentsByCourseName("Math").stream()
+                .filter(student -> student.id().toString().equals(studentId))
                 .findFirst().orElseThrow(() -> new NoSuchElementException("No student found"));
 
         // Then
@@ -78,8 +83,8 @@ class SchoolServiceImplTest {
     @Test
     void withdrawStudentFromCourse_GivenStudent2AndCourse1_WhenRemoved_ThenRowsAffectedIs1() {
         // Given
-        String studentId = "2";
-        String courseId = "1";
+        String studentId = "00000000-0000-0000-0000-000000000002";
+        String courseId = "00000000-0000-0000-0000-000000000001";
 
         // When
         boolean wasRemoved = schoolService.removeStudentFromCourse(studentId, courseId);
@@ -91,21 +96,163 @@ class SchoolServiceImplTest {
     @Test
     void withdrawStudentFromCourse_GivenStudent2AndCourse1_WhenRemoved_ThenStudentNotInCourseList() {
         // Given
-        String studentId = "2";
-        String courseId = "1";
+        String studentId = "00000000-0000-0000-0000-000000000002";
+        String courseId = "00000000-0000-0000-0000-000000000001";
 
         // When
         boolean wasRemoved = schoolService.removeStudentFromCourse(studentId, courseId);
 
         // Then
-        List<Student> studentsInMathCourse = studentDao.findAllStudentsByCourseName("Math");
+        List<StudentDetails> studentsInMathCourse = studentDao.findAllStudentsByCourseName("Math");
 
         boolean studentExistsInCourse = studentsInMathCourse.stream()
-                .anyMatch(student -> student.getId().equals(studentId));
+                .anyMatch(student -> student.id().toString().equals(studentId));
 
         assertTrue(wasRemoved);
         assertFalse(studentExistsInCourse, "Student should not be in the Math course list after removal.");
     }
 
-}
+    @Test
+    void addEnrollments_GivenNewPairs_WhenAdded_ThenStudentsShouldBeSeenInCourse() {
+        // Given
+        List<Enrollment> enrollments = List.of(new Enrollment("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000001"), new Enrollment("00000000-0000-0000-0000-000000000004", "00000000-0000-0000-0000-000000000001"));
+
+        // When
+        int added = schoolService.addEnrollments(enrollments);
+
+        // Then
+        assertEquals(2, added);
+        assertEquals(4, studentDao.findAllStudentsByCourseName("Math").size());
+    }
+
+    @Test
+    void addEnrollments_GivenAlreadyEnrolledAndRepeatedPairs_WhenAdded_ThenCountOnlyInsertedRows() {
+        // Given
+        Enrollment existing = new Enrollment("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000001");
+        Enrollment added = new Enrollment("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000001");
+
+        // When
+        int inserted = schoolService.addEnrollments(List.of(existing, added, added));
+
+        // Then
+        assertEquals(1, inserted);
+        assertEquals(3, studentDao.findAllStudentsByCourseName("Math").size());
+    }
+
+    @Test
+    void enrollStudentToCourse_GivenAlreadyEnrolledStudent_WhenAdded_ThenThrowIllegalArgumentException() {
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> schoolService.addStudentToCourse("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000001"));
+    }
 
+    @Test
+    void enrollStudentToCourse_GivenNonExistingStudent_WhenAdded_ThenThrowNoSuchElementException() {
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> schoolService.addStudentToCourse("00000000-0000-0000-0000-000000000999", "00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    void enrollStudentToCourse_GivenNonUuidStudentId_WhenAdded_ThenMessageQuotesTheGivenId() {
+        // When
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class,
+                () -> schoolService.addStudentToCourse("nope", "00000000-0000-0000-0000-000000000001"));
+
+        // Then
+        assertEquals("Student with ID nope does not exist.", exception.getMessage());
+    }
+
+    @Test
+    void enrollStudentToCourse_GivenNonExistingCourse_WhenAdded_ThenThrowNoSuchElementException() {
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> schoolService.addStudentToCourse("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000999"));
+    }
+
+    @Test
+    void withdrawStudentFromCourse_GivenNotEnrolledStudent_WhenRemoved_ThenThrowIllegalArgumentException() {
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> schoolService.removeStudentFromCourse("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    void studentEnrolledOnCourse_GivenEnrolledStudent_WhenChecked_ThenReturnTrue() {
+        // When/Then
+        assertTrue(schoolService.studentEnrolledOnCourse("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000003"));
+    }
+
+    @Test
+    void studentEnrolledOnCourse_GivenNotEnrolledStudent_WhenChecked_ThenReturnFalse() {
+        // When/Then
+        assertFalse(schoolService.studentEnrolledOnCourse("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    void studentEnrolledOnCourse_GivenNonExistingCourse_WhenChecked_ThenThrowNoSuchElementException() {
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> schoolService.studentEnrolledOnCourse("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000999"));
+    }
+
+    @Test
+    void enrollAll_GivenMixedPairs_WhenEnrolled_ThenReportStatusPerPair() {
+        // Given
+        Enrollment newPair = new Enrollment("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000001");
+        Enrollment existingPair = new Enrollment("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000001");
+        Enrollment unknownStudent = new Enrollment("00000000-0000-0000-0000-000000000999", "00000000-0000-0000-0000-000000000001");
+        Enrollment unknownCourse = new Enrollment("00000000-0000-0000-0000-000000000004", "00000000-0000-0000-0000-000000000999");
+
+        // When
+        EnrollmentResult result = schoolService.enrollAll(List.of(newPair, existingPair, unknownStudent, unknownCourse, newPair));
+
+        // Then
+        assertEquals(4, result.statuses().size());
+        assertEquals(EnrollmentStatus.ENROLLED, result.statusOf(newPair));
+        assertEquals(EnrollmentStatus.ALREADY_ENROLLED, result.statusOf(existingPair));
+        assertEquals(EnrollmentStatus.STUDENT_NOT_FOUND, result.statusOf(unknownStudent));
+        assertEquals(EnrollmentStatus.COURSE_NOT_FOUND, result.statusOf(unknownCourse));
+        assertTrue(schoolService.studentEnrolledOnCourse("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    void enrollGroup_GivenGroup2AndTwoCourses_WhenEnrolled_ThenSkipExistingEnrollment() {
+        // When
+        EnrollmentResult result = schoolService.enrollGroup("00000000-0000-0000-0000-000000000002", List.of("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000002"));
+
+        // Then
+        assertEquals(1, result.count(EnrollmentStatus.ENROLLED));
+        assertEquals(1, result.count(EnrollmentStatus.ALREADY_ENROLLED));
+        assertTrue(schoolService.studentEnrolledOnCourse("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    void enrollGroup_GivenNonExistingGroup_WhenEnrolled_ThenThrowNoSuchElementException() {
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> schoolService.enrollGroup("00000000-0000-0000-0000-000000000999", List.of("00000000-0000-0000-0000-000000000001")));
+    }
+
+    @Test
+    void deleteAll_WhenCalled_ThenStudentsAndEnrollmentsAreRemoved() {
+        // When
+        schoolService.deleteAll();
+
+        // Then
+        assertTrue(studentDao.getAllIds().isEmpty());
+        assertThrows(NoSuchElementException.class, () -> studentDao.findAllStudentsByCourseName("Math"));
+    }
+
+    @Test
+    void countStudentsOnCourse_GivenCourse1_WhenCounted_ThenReturn2() {
+        // When/Then
+        assertEquals(2, schoolService.countStudentsOnCourse("00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    void countStudentsOnCourse_GivenNonExistingCourse_WhenCounted_ThenThrowNoSuchElementException() {
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> schoolService.countStudentsOnCourse("00000000-0000-0000-0000-000000000999"));
+    }
+
+    @Test
+    void findStudentIdsOnAllCourses_GivenCourses1And3_WhenSearched_ThenReturnStudent1() {
+        // When/Then
+        assertEquals(List.of("00000000-0000-0000-0000-000000000001"), schoolService.findStudentIdsOnAllCourses(List.of("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000003")));
+    }
+}
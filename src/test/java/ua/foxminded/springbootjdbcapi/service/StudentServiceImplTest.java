@@ -1,26 +1,35 @@
 package ua.foxminded.springbootjdbcapi.service;
 
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ua.foxminded.springbootjdbcapi.service.StudentService;
 import ua.foxminded.springbootjdbcapi.model.Group;
+import ua.foxminded.springbootjdbcapi.model.KeysetPage;
 import ua.foxminded.springbootjdbcapi.model.Student;
+import ua.foxminded.springbootjdbcapi.model.StudentDetails;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
-        StudentService.class
+        StudentService.class, EntityCacheService.class
 }))
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Sql(
@@ -32,6 +41,12 @@ class StudentServiceImplTest {
     @Autowired
     private StudentService studentService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RecordingStatementInspector statementInspector;
+
     @Container
     private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest")
             .withDatabaseName("test")
@@ -42,17 +57,28 @@ class StudentServiceImplTest {
     void removeById_GivenId1_WhenDeleted_ThenRowsAffectedAndStudentRemoved() {
         // Given
         // When
-        studentService.deleteById("1");
+        studentService.deleteById("00000000-0000-0000-0000-000000000001");
+
+        // Then
+        assertThrows(NoSuchElementException.class, () -> studentService.getById("00000000-0000-0000-0000-000000000001"), "There is no such student with ID: 1");
+    }
+
+    @Test
+    void removeById_GivenEnrolledStudent_WhenDeleted_ThenEnrollmentsAreCascaded() {
+        // Given
+        // When
+        studentService.deleteById("00000000-0000-0000-0000-000000000001");
 
         // Then
-        assertThrows(NoSuchElementException.class, () -> studentService.getById("1"), "There is no such student with ID: 1");
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_courses WHERE student_id = '00000000-0000-0000-0000-000000000001'", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_courses", Integer.class));
     }
 
     @Test
     void removeById_GivenNonExistingId_WhenDeleted_ThenNoRowsAffected() {
         // Given
         // When
-        boolean wasDeleted = studentService.deleteById("999");
+        boolean wasDeleted = studentService.deleteById("00000000-0000-0000-0000-000000000999");
 
         // Then
         assertFalse(wasDeleted);
@@ -61,21 +87,21 @@ class StudentServiceImplTest {
     @Test
     void modify_GivenStudentWithId1_WhenUpdated_ThenUpdateFirstNameAndLastName() {
         // Given
-        Student testStudent = new Student("1", new Group("1", "test"), "test", "test");
+        Student testStudent = new Student("00000000-0000-0000-0000-000000000001", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "test");
 
         // When
         boolean wasUpdated = studentService.update(testStudent);
 
         // Then
         assertTrue(wasUpdated);
-        assertEquals("test", studentService.getById("1").getFirstName());
-        assertEquals("test", studentService.getById("1").getLastName());
+        assertEquals("test", studentService.getById("00000000-0000-0000-0000-000000000001").firstName());
+        assertEquals("test", studentService.getById("00000000-0000-0000-0000-000000000001").lastName());
     }
 
     @Test
     void modify_GivenNonExistingStudent_WhenUpdated_ThenRowsAffectedIs0() {
         // Given
-        Student testStudent = new Student("999", new Group("1", "test"), "test", "test");
+        Student testStudent = new Student("00000000-0000-0000-0000-000000000999", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "test");
 
         // When
         // Then
@@ -86,10 +112,10 @@ class StudentServiceImplTest {
     void listAll_WhenCalled_ThenRetrieveCorrectListOfStudents() {
         // Given
         List<Student> expectedStudents = List.of(
-                new Student("1", new Group("1", "Group A"), "John", "Doe"),
-                new Student("2", new Group("1", "Group A"), "Alice", "Smith"),
-                new Student("3", new Group("2", "Group B"), "Bob", "Johnson"),
-                new Student("4", new Group("1", "Group A"), "Eva", "Brown")
+                new Student("00000000-0000-0000-0000-000000000001", new Group("00000000-0000-0000-0000-000000000001", "Group A"), "John", "Doe"),
+                new Student("00000000-0000-0000-0000-000000000002", new Group("00000000-0000-0000-0000-000000000001", "Group A"), "Alice", "Smith"),
+                new Student("00000000-0000-0000-0000-000000000003", new Group("00000000-0000-0000-0000-000000000002", "Group B"), "Bob", "Johnson"),
+                new Student("00000000-0000-0000-0000-000000000004", new Group("00000000-0000-0000-0000-000000000001", "Group A"), "Eva", "Brown")
         );
 
         // When
@@ -102,63 +128,63 @@ class StudentServiceImplTest {
     @Test
     void retrieveById_GivenStudentId1_WhenFetched_ThenRetrieveStudentWithId1() {
         // Given
-        Group expectedGroup = new Group("1", "Group A");
-        Student expectedStudent = new Student("1", expectedGroup, "John", "Doe");
+        Group expectedGroup = new Group("00000000-0000-0000-0000-000000000001", "Group A");
+        Student expectedStudent = new Student("00000000-0000-0000-0000-000000000001", expectedGroup, "John", "Doe");
 
         // When
-        Student actualStudentOpt = studentService.getById("1");
+        StudentDetails actualStudentOpt = studentService.getById("00000000-0000-0000-0000-000000000001");
         assertTrue(actualStudentOpt != null);
-        Student actualStudent = actualStudentOpt;
+        StudentDetails actualStudent = actualStudentOpt;
 
         // Then
-        assertEquals(expectedStudent.getId(), actualStudent.getId());
-        assertEquals(expectedStudent.getFirstName(), actualStudent.getFirstName());
-        assertEquals(expectedStudent.getLastName(), actualStudent.getLastName());
-        assertNotNull(actualStudent.getGroup());
-        assertEquals(expectedGroup.getId(), actualStudent.getGroup().getId());
-        assertEquals(expectedGroup.getGroupName(), actualStudent.getGroup().getGroupName());
+        assertEquals(expectedStudent.getId(), actualStudent.id());
+        assertEquals(expectedStudent.getFirstName(), actualStudent.firstName());
+        assertEquals(expectedStudent.getLastName(), actualStudent.lastName());
+        assertNotNull(actualStudent.groupId());
+        assertEquals(expectedGroup.getId(), actualStudent.groupId());
+        assertEquals(expectedGroup.getGroupName(), actualStudent.groupName());
     }
 
 
     @Test
     void save_GivenNewStudent_WhenSaved_ThenRetrieveThisStudent() {
         // Given
-        Student exampleStudent = new Student("444", new Group("2", "Group B"), "test", "test");
+        Student exampleStudent = new Student("00000000-0000-0000-0000-000000000444", new Group("00000000-0000-0000-0000-000000000002", "Group B"), "test", "test");
         studentService.save(exampleStudent);
 
         // When
-        Student actual = studentService.getById("444");
+        StudentDetails actual = studentService.getById("00000000-0000-0000-0000-000000000444");
 
         // Then
-        assertEquals(exampleStudent, actual);
+        assertEquals(StudentDetails.of(exampleStudent), actual);
     }
 
     @Test
     void findAllStudentsByCourseName_GivenCourseMath_WhenSearched_ThenRetrieve2Students() {
         // Given
-        Group expectedGroup = new Group("1", "Group A");
+        Group expectedGroup = new Group("00000000-0000-0000-0000-000000000001", "Group A");
         List<Student> expected = List.of(
-                new Student("1", expectedGroup, "John", "Doe"),
-                new Student("2", expectedGroup, "Alice", "Smith")
+                new Student("00000000-0000-0000-0000-000000000001", expectedGroup, "John", "Doe"),
+                new Student("00000000-0000-0000-0000-000000000002", expectedGroup, "Alice", "Smith")
         );
 
         expected.forEach(student -> student.getGroup().setGroupName("Group A"));
 
         // When
-        List<Student> actual = studentService.findAllStudentsByCourseName("Math");
+        List<StudentDetails> actual = studentService.findAllStudentsByCourseName("Math");
 
         // Then
         assertNotNull(actual);
         assertEquals(2, actual.size());
-        assertTrue(actual.stream().anyMatch(student -> "John".equals(student.getFirstName()) && "Doe".equals(student.getLastName())));
-        assertTrue(actual.stream().anyMatch(student -> "Alice".equals(student.getFirstName()) && "Smith".equals(student.getLastName())));
+        assertTrue(actual.stream().anyMatch(student -> "John".equals(student.firstName()) && "Doe".equals(student.lastName())));
+        assertTrue(actual.stream().anyMatch(student -> "Alice".equals(student.firstName()) && "Smith".equals(student.lastName())));
     }
 
 
     @Test
     void save_GivenNewStudent_WhenSaved_ThenRowsAffectedIs1() {
         // Given
-        Student newStudent = new Student("111", new Group("1", "test"), "test", "test");
+        Student newStudent = new Student("00000000-0000-0000-0000-000000000111", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "test");
 
         // When
         boolean wasSaved = studentService.save(newStudent);
@@ -170,7 +196,7 @@ class StudentServiceImplTest {
     @Test
     void saveStudentWithOwnId_GivenStudentWithExistingId_WhenSaved_ThenThrowIllegalStateException() {
         // Given
-        Student existingStudent = new Student("1", new Group("1", "test"), "test", "test");
+        Student existingStudent = new Student("00000000-0000-0000-0000-000000000001", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "test");
 
         // When/Then
         assertThrows(IllegalStateException.class, () -> studentService.saveStudentWithOwnId(existingStudent));
@@ -179,7 +205,7 @@ class StudentServiceImplTest {
     @Test
     void saveStudentWithOwnId_GivenStudentWithUniqueId_WhenSaved_ThenReturnTrue() {
         // Given
-        Student uniqueStudent = new Student("999", new Group("1", "test"), "test", "test");
+        Student uniqueStudent = new Student("00000000-0000-0000-0000-000000000999", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "test");
 
         // When
         boolean wasSaved = studentService.saveStudentWithOwnId(uniqueStudent);
@@ -188,6 +214,19 @@ class StudentServiceImplTest {
         assertTrue(wasSaved);
     }
 
+    @Test
+    void saveStudentWithOwnId_GivenLegacyTextualId_WhenSaved_ThenRetrieveByTheSameText() {
+        // Given
+        Student legacyStudent = new Student("legacy-7", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "test");
+
+        // When
+        studentService.saveStudentWithOwnId(legacyStudent);
+
+        // Then
+        assertEquals(legacyStudent.getId(), studentService.getById("legacy-7").id());
+        assertTrue(studentService.deleteById("legacy-7"));
+    }
+
     @Test
     void deleteAll_ShouldDeleteAllStudents() {
         // When
@@ -200,7 +239,7 @@ class StudentServiceImplTest {
     @Test
     void update_GivenExistingStudent_WhenUpdated_ThenReturnTrue() {
         // Given
-        Student existingStudent = new Student("1", new Group("1", "test"), "test", "updated");
+        Student existingStudent = new Student("00000000-0000-0000-0000-000000000001", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "updated");
 
         // When
         boolean wasUpdated = studentService.update(existingStudent);
@@ -212,7 +251,7 @@ class StudentServiceImplTest {
     @Test
     void update_GivenNonExistingStudent_WhenUpdated_ThenThrowNoSuchElementException() {
         // Given
-        Student nonExistingStudent = new Student("999", new Group("1", "test"), "test", "test");
+        Student nonExistingStudent = new Student("00000000-0000-0000-0000-000000000999", new Group("00000000-0000-0000-0000-000000000001", "test"), "test", "test");
 
         // When/Then
         assertThrows(NoSuchElementException.class, () -> studentService.update(nonExistingStudent));
@@ -221,7 +260,7 @@ class StudentServiceImplTest {
     @Test
     void deleteById_GivenExistingId_WhenDeleted_ThenReturnTrue() {
         // When
-        boolean wasDeleted = studentService.deleteById("1");
+        boolean wasDeleted = studentService.deleteById("00000000-0000-0000-0000-000000000001");
 
         // Then
         assertTrue(wasDeleted);
@@ -230,7 +269,7 @@ class StudentServiceImplTest {
     @Test
     void deleteById_GivenNonExistingId_WhenDeleted_ThenReturnFalse() {
         // When
-        boolean wasDeleted = studentService.deleteById("999");
+        boolean wasDeleted = studentService.deleteById("00000000-0000-0000-0000-000000000999");
 
         // Then
         assertFalse(wasDeleted);
@@ -239,7 +278,7 @@ class StudentServiceImplTest {
     @Test
     void existsById_GivenExistingId_ThenReturnTrue() {
         // When
-        boolean exists = studentService.existsById("1");
+        boolean exists = studentService.existsById("00000000-0000-0000-0000-000000000001");
 
         // Then
         assertTrue(exists);
@@ -248,7 +287,7 @@ class StudentServiceImplTest {
     @Test
     void existsById_GivenNonExistingId_ThenReturnFalse() {
         // When
-        boolean exists = studentService.existsById("999");
+        boolean exists = studentService.existsById("00000000-0000-0000-0000-000000000999");
 
         // Then
         assertFalse(exists);
@@ -267,7 +306,7 @@ class StudentServiceImplTest {
     @Test
     void getById_GivenExistingId_WhenFetched_ThenRetrieveStudent() {
         // When
-        Student student = studentService.getById("1");
+        StudentDetails student = studentService.getById("00000000-0000-0000-0000-000000000001");
 
         // Then
         assertNotNull(student);
@@ -276,13 +315,13 @@ class StudentServiceImplTest {
     @Test
     void getById_GivenNonExistingId_WhenFetched_ThenThrowNoSuchElementException() {
         // When/Then
-        assertThrows(NoSuchElementException.class, () -> studentService.getById("999"));
+        assertThrows(NoSuchElementException.class, () -> studentService.getById("00000000-0000-0000-0000-000000000999"));
     }
 
     @Test
     void findAllStudentsByCourseName_GivenExistingCourseName_WhenSearched_ThenRetrieveStudents() {
         // When
-        List<Student> students = studentService.findAllStudentsByCourseName("Math");
+        List<StudentDetails> students = studentService.findAllStudentsByCourseName("Math");
 
         // Then
         assertNotNull(students);
@@ -295,4 +334,167 @@ class StudentServiceImplTest {
         assertThrows(NoSuchElementException.class, () -> studentService.findAllStudentsByCourseName("NonexistentCourse"));
     }
 
+    @Test
+    void findAllStudentsByCourseName_GivenCourseComputerScience_WhenSearched_ThenRetrieveStudentsOrderedById() {
+        // When
+        List<String> actualIds = studentService.findAllStudentsByCourseName("Computer Science").stream()
+                .map(student -> student.id().toString())
+                .toList();
+
+        // Then
+        assertEquals(List.of("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000004"), actualIds);
+    }
+
+    @Test
+    void findAllStudentsByCourseName_GivenTwoCoursesWithTheSameName_WhenSearched_ThenRetrieveStudentsOfBoth() {
+        // Given
+        jdbcTemplate.update("INSERT INTO courses (course_id, course_name) VALUES ('00000000-0000-0000-0000-000000000004', 'History')");
+        jdbcTemplate.update("INSERT INTO student_courses (student_id, course_id) VALUES ('00000000-0000-0000-0000-000000000002', '00000000-0000-0000-0000-000000000004')");
+
+        // When
+        List<String> actualIds = studentService.findAllStudentsByCourseName("History").stream()
+                .map(student -> student.id().toString())
+                .toList();
+
+        // Then
+        assertEquals(List.of("00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-000000000003"), actualIds);
+    }
+
+    @Test
+    void findAllStudentsByCourseName_GivenGenericPlanOfTheRosterQuery_WhenExplained_ThenOnlyTheCoursePartitionIsScanned() {
+        // Given
+        statementInspector.clear();
+        studentService.findAllStudentsByCourseName("Math");
+        String roster = statementInspector.statements().stream()
+                .filter(sql -> sql.contains("student_courses"))
+                .reduce((first, last) -> last)
+                .orElseThrow();
+
+        // When
+        List<String> plan = explainGenericPlan(roster, "00000000-0000-0000-0000-000000000001");
+
+        // Then
+        String explained = roster + "\n" + String.join("\n", plan);
+        assertTrue(plan.stream().anyMatch(line -> line.contains("Subplans Removed")), explained);
+        assertEquals(1, plan.stream().filter(line -> line.matches(".* on student_courses_p\\d+( .*)?")).count(), explained);
+    }
+
+    @Test
+    void getStudentsPage_GivenPageSize3_WhenWalkedFromStart_ThenReturnAllStudentsInTwoPages() {
+        // When
+        KeysetPage<Student> firstPage = studentService.getStudentsPage(null, 3);
+        KeysetPage<Student> secondPage = studentService.getStudentsPage(firstPage.nextCursor(), 3);
+
+        // Then
+        assertEquals(List.of("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-000000000003"), firstPage.content().stream().map(student -> student.getId().toString()).toList());
+        assertEquals("00000000-0000-0000-0000-000000000003", firstPage.nextCursor());
+        assertEquals(List.of("00000000-0000-0000-0000-000000000004"), secondPage.content().stream().map(student -> student.getId().toString()).toList());
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    void getStudentsPage_GivenNonPositivePageSize_WhenFetched_ThenThrowIllegalArgumentException() {
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> studentService.getStudentsPage(null, 0));
+    }
+
+    @Test
+    void saveStudentWithOwnId_GivenStudentWithUniqueId_WhenSaved_ThenRetrieveThisStudentWithGroup() {
+        // Given
+        Student uniqueStudent = new Student("00000000-0000-0000-0000-000000000555", new Group("00000000-0000-0000-0000-000000000002", "Group B"), "test", "test");
+
+        // When
+        studentService.saveStudentWithOwnId(uniqueStudent);
+
+        // Then
+        StudentDetails actual = studentService.getById("00000000-0000-0000-0000-000000000555");
+        assertEquals("test", actual.firstName());
+        assertEquals("00000000-0000-0000-0000-000000000002", actual.groupId().toString());
+        assertTrue(studentService.getAllIds().contains("00000000-0000-0000-0000-000000000555"));
+    }
+
+    @Test
+    void deleteAll_GivenNoStudents_WhenDeleted_ThenThrowNoSuchElementException() {
+        // Given
+        studentService.deleteAll();
+
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> studentService.deleteAll());
+        assertTrue(studentService.getAllIds().isEmpty());
+    }
+
+    @Test
+    void patch_GivenOnlyLastName_WhenPatched_ThenKeepOtherFields() {
+        // Given
+        Student patch = new Student("00000000-0000-0000-0000-000000000001", null, null, "Patched");
+
+        // When
+        boolean wasPatched = studentService.patch(patch);
+
+        // Then
+        StudentDetails actual = studentService.getById("00000000-0000-0000-0000-000000000001");
+        assertTrue(wasPatched);
+        assertEquals("John", actual.firstName());
+        assertEquals("Patched", actual.lastName());
+        assertEquals("00000000-0000-0000-0000-000000000001", actual.groupId().toString());
+    }
+
+    @Test
+    void patch_GivenNonExistingStudent_WhenPatched_ThenThrowNoSuchElementException() {
+        // Given
+        Student patch = new Student("00000000-0000-0000-0000-000000000999", null, "test", null);
+
+        // When/Then
+        assertThrows(NoSuchElementException.class, () -> studentService.patch(patch));
+    }
+
+
+    // server-side prepared statements switch to a generic plan after five runs, which can only prune partitions
+    // when the executor starts, so the plan is forced generic to check what the application ends up running
+    private List<String> explainGenericPlan(String sql, String courseId) {
+        int parameter = 0;
+        StringBuilder prepared = new StringBuilder();
+        for (char c : sql.toCharArray()) {
+            prepared.append(c == '?' ? "$" + ++parameter : String.valueOf(c));
+        }
+
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("PREPARE roster AS " + prepared);
+        try {
+            return jdbcTemplate.queryForList("EXPLAIN EXECUTE roster('" + courseId + "')", String.class);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE roster");
+        }
+    }
+
+    static class RecordingStatementInspector implements StatementInspector {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        List<String> statements() {
+            return statements;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class StatementRecordingConfig {
+        @Bean
+        RecordingStatementInspector statementInspector() {
+            return new RecordingStatementInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer(RecordingStatementInspector statementInspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementInspector);
+        }
+    }
 }
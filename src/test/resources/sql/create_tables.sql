@@ -5,31 +5,140 @@ DROP TABLE IF EXISTS courses CASCADE;
 
 CREATE TABLE IF NOT EXISTS groups
 (
-    group_id   VARCHAR(255) PRIMARY KEY,
-    group_name VARCHAR(255) NOT NULL
+    group_id      UUID PRIMARY KEY,
+    group_name    VARCHAR(255) NOT NULL,
+    student_count INTEGER      NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS students
 (
-    student_id VARCHAR(255) PRIMARY KEY,
-    group_id   VARCHAR(255),
+    student_id UUID PRIMARY KEY,
+    group_id   UUID,
     first_name VARCHAR(255) NOT NULL,
     last_name  VARCHAR(255) NOT NULL,
-    FOREIGN KEY (group_id) REFERENCES groups (group_id)
+    FOREIGN KEY (group_id) REFERENCES groups (group_id) ON DELETE SET NULL
 );
 
 CREATE TABLE IF NOT EXISTS courses
 (
-    course_id          VARCHAR(255) PRIMARY KEY,
+    course_id          UUID PRIMARY KEY,
     course_name        VARCHAR(255) NOT NULL,
     course_description TEXT
 );
 
 CREATE TABLE IF NOT EXISTS student_courses
 (
-    student_id VARCHAR(255),
-    course_id  VARCHAR(255),
+    student_id UUID,
+    course_id  UUID,
     PRIMARY KEY (student_id, course_id),
-    FOREIGN KEY (student_id) REFERENCES students (student_id),
-    FOREIGN KEY (course_id) REFERENCES courses (course_id)
-);
\ No newline at end of file
+    FOREIGN KEY (student_id) REFERENCES students (student_id) ON DELETE CASCADE,
+    FOREIGN KEY (course_id) REFERENCES courses (course_id) ON DELETE CASCADE
+) PARTITION BY HASH (course_id);
+
+CREATE TABLE IF NOT EXISTS student_courses_p0 PARTITION OF student_courses FOR VALUES WITH (MODULUS 4, REMAINDER 0);
+CREATE TABLE IF NOT EXISTS student_courses_p1 PARTITION OF student_courses FOR VALUES WITH (MODULUS 4, REMAINDER 1);
+CREATE TABLE IF NOT EXISTS student_courses_p2 PARTITION OF student_courses FOR VALUES WITH (MODULUS 4, REMAINDER 2);
+CREATE TABLE IF NOT EXISTS student_courses_p3 PARTITION OF student_courses FOR VALUES WITH (MODULUS 4, REMAINDER 3);
+
+CREATE INDEX IF NOT EXISTS idx_courses_course_name ON courses (course_name);
+
+CREATE INDEX IF NOT EXISTS idx_student_courses_course_id ON student_courses (course_id, student_id);
+
+CREATE INDEX IF NOT EXISTS idx_groups_student_count ON groups (student_count, group_id);
+
+CREATE INDEX IF NOT EXISTS idx_students_group_id ON students (group_id);
+
+CREATE OR REPLACE FUNCTION sync_group_student_count() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+'
+DECLARE
+    changed_group_ids UUID[];
+    deltas            BIGINT[];
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, COUNT(*) AS delta FROM new_rows WHERE group_id IS NOT NULL GROUP BY group_id) changes;
+    ELSIF TG_OP = ''DELETE'' THEN
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, -COUNT(*) AS delta FROM old_rows WHERE group_id IS NOT NULL GROUP BY group_id) changes;
+    ELSE
+        SELECT array_agg(group_id ORDER BY group_id), array_agg(delta ORDER BY group_id)
+        INTO changed_group_ids, deltas
+        FROM (SELECT group_id, SUM(delta) AS delta
+              FROM (SELECT group_id, 1 AS delta FROM new_rows
+                    UNION ALL
+                    SELECT group_id, -1 AS delta FROM old_rows) moves
+              WHERE group_id IS NOT NULL
+              GROUP BY group_id
+              HAVING SUM(delta) <> 0) changes;
+    END IF;
+
+    IF changed_group_ids IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    PERFORM 1 FROM groups WHERE group_id = ANY (changed_group_ids) ORDER BY group_id FOR UPDATE;
+
+    UPDATE groups g
+    SET student_count = g.student_count + changes.delta
+    FROM unnest(changed_group_ids, deltas) AS changes(group_id, delta)
+    WHERE g.group_id = changes.group_id;
+
+    RETURN NULL;
+END
+';
+
+CREATE OR REPLACE FUNCTION reset_group_student_count() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+'
+BEGIN
+    UPDATE groups SET student_count = 0 WHERE student_count <> 0;
+    RETURN NULL;
+END
+';
+
+CREATE TRIGGER students_insert_group_count
+    AFTER INSERT ON students
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_group_student_count();
+
+CREATE TRIGGER students_update_group_count
+    AFTER UPDATE ON students
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_group_student_count();
+
+CREATE TRIGGER students_delete_group_count
+    AFTER DELETE ON students
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_group_student_count();
+
+CREATE TRIGGER students_truncate_group_count
+    AFTER TRUNCATE ON students
+    FOR EACH STATEMENT EXECUTE FUNCTION reset_group_student_count();
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS course_enrollment_stats AS
+SELECT c.course_id, c.course_name, COUNT(sc.student_id) AS student_count
+FROM courses c
+         LEFT JOIN student_courses sc ON sc.course_id = c.course_id
+GROUP BY c.course_id, c.course_name;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_course_enrollment_stats ON course_enrollment_stats (course_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS group_course_enrollment_stats AS
+SELECT s.group_id, sc.course_id, COUNT(*) AS student_count
+FROM student_courses sc
+         JOIN students s ON s.student_id = sc.student_id
+WHERE s.group_id IS NOT NULL
+GROUP BY s.group_id, sc.course_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_group_course_enrollment_stats ON group_course_enrollment_stats (group_id, course_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS enrollment_summary AS
+SELECT 1                                      AS summary_id,
+       (SELECT COUNT(*) FROM students)        AS student_count,
+       (SELECT COUNT(*) FROM student_courses) AS enrollment_count,
+       now()                                  AS refreshed_at;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_enrollment_summary ON enrollment_summary (summary_id);
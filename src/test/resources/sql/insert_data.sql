@@ -1,25 +1,25 @@
 INSERT INTO groups (group_id, group_name)
 VALUES
-    ('1', 'Group A'),
-    ('2', 'Group B');
+    ('00000000-0000-0000-0000-000000000001', 'Group A'),
+    ('00000000-0000-0000-0000-000000000002', 'Group B');
 
 INSERT INTO courses (course_id, course_name, course_description)
 VALUES
-    ('1', 'Math', 'Intro to math'),
-    ('2', 'History', 'Intro to history'),
-    ('3', 'Computer Science', 'Intro to programming');
+    ('00000000-0000-0000-0000-000000000001', 'Math', 'Intro to math'),
+    ('00000000-0000-0000-0000-000000000002', 'History', 'Intro to history'),
+    ('00000000-0000-0000-0000-000000000003', 'Computer Science', 'Intro to programming');
 
 INSERT INTO students (student_id, group_id, first_name, last_name)
 VALUES
-    ('1', '1', 'John', 'Doe'),
-    ('2', '1', 'Alice', 'Smith'),
-    ('3', '2', 'Bob', 'Johnson'),
-    ('4', '1', 'Eva', 'Brown');
+    ('00000000-0000-0000-0000-000000000001', '00000000-0000-0000-0000-000000000001', 'John', 'Doe'),
+    ('00000000-0000-0000-0000-000000000002', '00000000-0000-0000-0000-000000000001', 'Alice', 'Smith'),
+    ('00000000-0000-0000-0000-000000000003', '00000000-0000-0000-0000-000000000002', 'Bob', 'Johnson'),
+    ('00000000-0000-0000-0000-000000000004', '00000000-0000-0000-0000-000000000001', 'Eva', 'Brown');
 
 INSERT INTO student_courses (student_id, course_id)
 VALUES
-    ('1', '1'),
-    ('1', '3'),
-    ('2', '1'),
-    ('3', '2'),
-    ('4', '3');
+    ('00000000-0000-0000-0000-000000000001', '00000000-0000-0000-0000-000000000001'),
+    ('00000000-0000-0000-0000-000000000001', '00000000-0000-0000-0000-000000000003'),
+    ('00000000-0000-0000-0000-000000000002', '00000000-0000-0000-0000-000000000001'),
+    ('00000000-0000-0000-0000-000000000003', '00000000-0000-0000-0000-000000000002'),
+    ('00000000-0000-0000-0000-000000000004', '00000000-0000-0000-0000-000000000003');